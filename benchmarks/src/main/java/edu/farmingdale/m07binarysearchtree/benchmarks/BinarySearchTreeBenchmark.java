@@ -0,0 +1,237 @@
+package edu.farmingdale.m07binarysearchtree.benchmarks;
+
+import edu.farmingdale.m07binarysearchtree.BinarySearchTree;
+import java.util.Iterator;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Every public BinarySearchTree operation, with java.util.TreeSet as the
+ * baseline for the ones a TreeSet has. Each benchmark is one pass over the
+ * whole tree (n inserts, n lookups, a full traversal, ...), so scores are
+ * microseconds per pass of size elements.
+ *
+ * Sorted and reversed insertion into an unbalanced (NONE) tree builds a
+ * path: setting up 100000 keys that way takes some 5*10^9 comparisons and
+ * every operation walks the whole path. Those shapes are left out of the
+ * default grid; run them on their own, with small sizes, e.g.
+ * -p shape=NONE/SORTED,NONE/REVERSED -p size=1000.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class BinarySearchTreeBenchmark {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param({"STRING", "INTEGER"})
+    Keys.KeyType keyType;
+
+    // balance/order; any of NONE, AVL with any of RANDOM, SORTED, REVERSED
+    @Param({"AVL/RANDOM", "AVL/SORTED", "AVL/REVERSED", "NONE/RANDOM"})
+    String shape;
+
+    Keys.Order order;
+    BinarySearchTree.Balance balance;
+
+    Comparable[] keys;
+    Comparable[] misses;
+    BinarySearchTree tree;
+    BinarySearchTree treeCopy;
+    TreeSet set;
+    TreeSet setCopy;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] parts = shape.split("/");
+        balance = BinarySearchTree.Balance.valueOf(parts[0]);
+        order = Keys.Order.valueOf(parts[1]);
+        keys = Keys.make(size, keyType, order, false, 42);
+        misses = Keys.make(size, keyType, Keys.Order.RANDOM, true, 43);
+        tree = buildTree();
+        treeCopy = buildTree();
+        set = new TreeSet();
+        for (Comparable key : keys) {
+            set.add(key);
+        }
+        setCopy = new TreeSet(set);
+    }
+
+    BinarySearchTree buildTree() {
+        BinarySearchTree rv = new BinarySearchTree(balance);
+        for (Comparable key : keys) {
+            rv.insert(key);
+        }
+        return rv;
+    }
+
+    /**
+     * A fresh copy of the tree and set for each invocation of the removal
+     * benchmarks, so every pass removes from a full tree
+     */
+    @State(Scope.Thread)
+    public static class RemoveState {
+
+        BinarySearchTree tree;
+        TreeSet set;
+
+        @Setup(Level.Invocation)
+        public void setUp(BinarySearchTreeBenchmark outer) {
+            tree = new BinarySearchTree(outer.tree, UnaryOperator.identity());
+            set = new TreeSet(outer.set);
+        }
+    }
+
+    @Benchmark
+    public BinarySearchTree insert() {
+        return buildTree();
+    }
+
+    @Benchmark
+    public TreeSet insertTreeSet() {
+        TreeSet rv = new TreeSet();
+        for (Comparable key : keys) {
+            rv.add(key);
+        }
+        return rv;
+    }
+
+    @Benchmark
+    public void searchHit(Blackhole bh) {
+        for (Comparable key : keys) {
+            bh.consume(tree.search(key));
+        }
+    }
+
+    @Benchmark
+    public void searchHitTreeSet(Blackhole bh) {
+        for (Comparable key : keys) {
+            bh.consume(set.contains(key));
+        }
+    }
+
+    @Benchmark
+    public void searchMiss(Blackhole bh) {
+        for (Comparable key : misses) {
+            bh.consume(tree.search(key));
+        }
+    }
+
+    @Benchmark
+    public void searchMissTreeSet(Blackhole bh) {
+        for (Comparable key : misses) {
+            bh.consume(set.contains(key));
+        }
+    }
+
+    @Benchmark
+    public BinarySearchTree remove(RemoveState state) {
+        for (Comparable key : keys) {
+            state.tree.remove(key);
+        }
+        return state.tree;
+    }
+
+    @Benchmark
+    public TreeSet removeTreeSet(RemoveState state) {
+        for (Comparable key : keys) {
+            state.set.remove(key);
+        }
+        return state.set;
+    }
+
+    @Benchmark
+    public void iterator(Blackhole bh) {
+        Iterator iter = tree.iterator();
+        while (iter.hasNext()) {
+            bh.consume(iter.next());
+        }
+    }
+
+    @Benchmark
+    public void iteratorTreeSet(Blackhole bh) {
+        Iterator iter = set.iterator();
+        while (iter.hasNext()) {
+            bh.consume(iter.next());
+        }
+    }
+
+    @Benchmark
+    public void dfsPrefix(Blackhole bh) {
+        tree.dfsPrefix(bh::consume);
+    }
+
+    @Benchmark
+    public void dfsInfix(Blackhole bh) {
+        tree.dfsInfix(bh::consume);
+    }
+
+    @Benchmark
+    public void dfsPostfix(Blackhole bh) {
+        tree.dfsPostfix(bh::consume);
+    }
+
+    @Benchmark
+    public void bfs(Blackhole bh) {
+        tree.bfs(bh::consume);
+    }
+
+    @Benchmark
+    public void bfsLevels(Blackhole bh) {
+        tree.bfsLevels((level, depth) -> bh.consume(level));
+    }
+
+    @Benchmark
+    public boolean equalsTree() {
+        return tree.equals(treeCopy);
+    }
+
+    @Benchmark
+    public boolean equalsTreeSet() {
+        return set.equals(setCopy);
+    }
+
+    @Benchmark
+    public int hashCodeTree() {
+        return tree.hashCode();
+    }
+
+    @Benchmark
+    public int hashCodeTreeSet() {
+        return set.hashCode();
+    }
+
+    @Benchmark
+    public int height() {
+        return tree.height();
+    }
+
+    @Benchmark
+    public BinarySearchTree copyConstructor() {
+        return new BinarySearchTree(tree);
+    }
+
+    @Benchmark
+    public TreeSet copyConstructorTreeSet() {
+        return new TreeSet(set);
+    }
+}
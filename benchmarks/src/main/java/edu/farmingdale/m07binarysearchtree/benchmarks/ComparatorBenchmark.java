@@ -0,0 +1,65 @@
+package edu.farmingdale.m07binarysearchtree.benchmarks;
+
+import edu.farmingdale.m07binarysearchtree.BinarySearchTree;
+import edu.farmingdale.m07binarysearchtree.KeyComparators;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Lookups of padded numeric string keys in a tree ordered naturally
+ * (String.compareTo), by KeyComparators.numericStrings(), and by a reversed
+ * comparator. Scores are microseconds per pass of size lookups.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class ComparatorBenchmark {
+
+    @Param({"NATURAL", "NUMERIC_STRINGS", "REVERSED"})
+    String ordering;
+
+    @Param({"100000"})
+    int size;
+
+    Comparable[] keys;
+    BinarySearchTree tree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = Keys.make(size, Keys.KeyType.STRING, Keys.Order.RANDOM, false, 42);
+        Comparator comparator = null;
+        if ("NUMERIC_STRINGS".equals(ordering)) {
+            comparator = KeyComparators.numericStrings();
+        } else if ("REVERSED".equals(ordering)) {
+            comparator = Comparator.reverseOrder();
+        }
+        tree = new BinarySearchTree(comparator, BinarySearchTree.Balance.AVL);
+        for (Comparable key : keys) {
+            tree.insert(key);
+        }
+    }
+
+    @Benchmark
+    public void searchHit(Blackhole bh) {
+        for (Comparable key : keys) {
+            bh.consume(tree.search(key));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package edu.farmingdale.m07binarysearchtree.benchmarks;
+
+import edu.farmingdale.m07binarysearchtree.BinarySearchTree;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Lookups that each land near the previous one (a random walk with steps of
+ * up to hop keys), done as searches from the root and as seeks from a
+ * cursor, in an AVL tree of padded string keys. Scores are microseconds per
+ * pass of LOOKUPS lookups.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class CursorBenchmark {
+
+    static final int LOOKUPS = 100_000;
+
+    @Param({"16", "4096"})
+    int hop;
+
+    @Param({"1000000"})
+    int size;
+
+    Comparable[] lookups;
+    BinarySearchTree tree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tree = new BinarySearchTree(BinarySearchTree.Balance.AVL);
+        for (Comparable key : Keys.make(size, Keys.KeyType.STRING, Keys.Order.RANDOM, false, 42)) {
+            tree.insert(key);
+        }
+        var random = new Random(7);
+        lookups = new Comparable[LOOKUPS];
+        int at = size;
+        for (int i = 0; i < LOOKUPS; ++i) {
+            at = Math.floorMod(at + random.nextInt(2 * hop + 1) - hop, 2 * size);
+            lookups[i] = Keys.pad(at);
+        }
+    }
+
+    @Benchmark
+    public void searchFromRoot(Blackhole bh) {
+        for (Comparable key : lookups) {
+            bh.consume(tree.search(key));
+        }
+    }
+
+    @Benchmark
+    public void seekFromCursor(Blackhole bh) {
+        BinarySearchTree.Cursor cursor = tree.cursor();
+        for (Comparable key : lookups) {
+            bh.consume(cursor.seek(key));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package edu.farmingdale.m07binarysearchtree.benchmarks;
+
+import edu.farmingdale.m07binarysearchtree.BinarySearchTree;
+import edu.farmingdale.m07binarysearchtree.FrozenBinarySearchTree;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The frozen (Eytzinger array) index against the AVL pointer tree it was
+ * frozen from. Lookups are in random order so the sizes past the last level
+ * cache show the cost of a miss per level in the pointer tree. Scores are
+ * microseconds per pass of size lookups (or one full iteration).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class FrozenBenchmark {
+
+    @Param({"1000", "100000", "4000000"})
+    int size;
+
+    @Param({"STRING", "INTEGER"})
+    Keys.KeyType keyType;
+
+    Comparable[] keys;
+    Comparable[] misses;
+    BinarySearchTree tree;
+    FrozenBinarySearchTree frozen;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = Keys.make(size, keyType, Keys.Order.RANDOM, false, 42);
+        misses = Keys.make(size, keyType, Keys.Order.RANDOM, true, 43);
+        tree = new BinarySearchTree(BinarySearchTree.Balance.AVL);
+        for (Comparable key : keys) {
+            tree.insert(key);
+        }
+        frozen = tree.freeze();
+    }
+
+    @Benchmark
+    public void searchHitTree(Blackhole bh) {
+        for (Comparable key : keys) {
+            bh.consume(tree.search(key));
+        }
+    }
+
+    @Benchmark
+    public void searchHitFrozen(Blackhole bh) {
+        for (Comparable key : keys) {
+            bh.consume(frozen.search(key));
+        }
+    }
+
+    @Benchmark
+    public void searchMissTree(Blackhole bh) {
+        for (Comparable key : misses) {
+            bh.consume(tree.search(key));
+        }
+    }
+
+    @Benchmark
+    public void searchMissFrozen(Blackhole bh) {
+        for (Comparable key : misses) {
+            bh.consume(frozen.search(key));
+        }
+    }
+
+    @Benchmark
+    public void rankTree(Blackhole bh) {
+        for (Comparable key : misses) {
+            bh.consume(tree.rank(key));
+        }
+    }
+
+    @Benchmark
+    public void rankFrozen(Blackhole bh) {
+        for (Comparable key : misses) {
+            bh.consume(frozen.rank(key));
+        }
+    }
+
+    @Benchmark
+    public void iteratorTree(Blackhole bh) {
+        Iterator iter = tree.iterator();
+        while (iter.hasNext()) {
+            bh.consume(iter.next());
+        }
+    }
+
+    @Benchmark
+    public void iteratorFrozen(Blackhole bh) {
+        Iterator iter = frozen.iterator();
+        while (iter.hasNext()) {
+            bh.consume(iter.next());
+        }
+    }
+
+    @Benchmark
+    public FrozenBinarySearchTree freeze() {
+        return tree.freeze();
+    }
+}
@@ -0,0 +1,84 @@
+package edu.farmingdale.m07binarysearchtree.benchmarks;
+
+import edu.farmingdale.m07binarysearchtree.BinarySearchTree;
+import edu.farmingdale.m07binarysearchtree.KeyCodec;
+import edu.farmingdale.m07binarysearchtree.TreeJournal;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Insert/remove churn on an AVL tree with and without a journal attached,
+ * to check that group commit keeps the journaled rate close to the
+ * in-memory one. Scores are operations per microsecond.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JournalBenchmark {
+
+    @Param({"false", "true"})
+    boolean journaled;
+
+    @Param({"100000"})
+    int size;
+
+    BinarySearchTree<Integer> tree;
+    TreeJournal<Integer> journal;
+    Path dir;
+    int[] keys;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        keys = new int[1 << 20];
+        for (int i = 0; i < keys.length; ++i) {
+            keys[i] = random.nextInt(2 * size);
+        }
+        tree = new BinarySearchTree<>(BinarySearchTree.Balance.AVL);
+        for (int i = 0; i < size; ++i) {
+            tree.insert(random.nextInt(2 * size));
+        }
+        if (journaled) {
+            dir = Files.createTempDirectory("journal-bench");
+            journal = TreeJournal.open(dir.resolve("tree.journal"), KeyCodec.INTEGER);
+            tree.setJournal(journal);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (journaled) {
+            tree.setJournal(null);
+            journal.close();
+            Files.delete(dir.resolve("tree.journal"));
+            Files.delete(dir);
+        }
+    }
+
+    @Benchmark
+    public boolean churn() {
+        int key = keys[next++ & (keys.length - 1)];
+        // insert if missing, remove if present: the size stays put
+        return tree.insert(key) || tree.remove(key);
+    }
+}
@@ -0,0 +1,103 @@
+package edu.farmingdale.m07binarysearchtree.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Key generation shared by the benchmarks. Keys present in a tree are the
+ * even numbers 0, 2, .. 2(n-1); the odd numbers between them are guaranteed
+ * misses. String keys are zero padded to the width LargeBinarySearchTreeTest
+ * uses, so they sort the same way as the numbers.
+ */
+public final class Keys {
+
+    public enum KeyType {
+        STRING,
+        INTEGER
+    }
+
+    public enum Order {
+        RANDOM,
+        SORTED,
+        REVERSED
+    }
+
+    private static final int MAX_WIDTH = (int) Math.log10(Integer.MAX_VALUE) + 1;
+
+    private Keys() {
+    }
+
+    /**
+     * @param size how many keys
+     * @param type boxed Integer or padded String
+     * @param order the order in which they will be inserted
+     * @param miss true for the odd (absent) keys instead of the even ones
+     * @param seed shuffle seed for Order.RANDOM
+     * @return the keys, in insertion order
+     */
+    @SuppressWarnings("rawtypes")
+    static Comparable[] make(int size, KeyType type, Order order, boolean miss, long seed) {
+        int[] values = new int[size];
+        for (int i = 0; i < size; ++i) {
+            values[i] = 2 * i + (miss ? 1 : 0);
+        }
+        if (order == Order.REVERSED) {
+            for (int i = 0, j = size - 1; i < j; ++i, --j) {
+                int tmp = values[i];
+                values[i] = values[j];
+                values[j] = tmp;
+            }
+        } else if (order == Order.RANDOM) {
+            var random = new Random(seed);
+            for (int i = size - 1; i > 0; --i) {
+                int j = random.nextInt(i + 1);
+                int tmp = values[i];
+                values[i] = values[j];
+                values[j] = tmp;
+            }
+        }
+        Comparable[] rv = new Comparable[size];
+        for (int i = 0; i < size; ++i) {
+            rv[i] = (type == KeyType.INTEGER) ? Integer.valueOf(values[i]) : pad(values[i]);
+        }
+        return rv;
+    }
+
+    /**
+     * Draw lookups from a Zipf distribution over keys: the key of rank r
+     * (1 based) is drawn with probability proportional to 1 / r^skew. The
+     * ranks are given to the keys in the order passed in, so pass them
+     * shuffled to scatter the hot keys over the tree.
+     *
+     * @param keys the keys, hottest first
+     * @param count how many lookups
+     * @param skew the Zipf exponent; around 1 is typical of real traffic
+     * @param seed the random seed
+     * @return the lookups
+     */
+    @SuppressWarnings("rawtypes")
+    static Comparable[] zipf(Comparable[] keys, int count, double skew, long seed) {
+        double[] cumulative = new double[keys.length];
+        double sum = 0;
+        for (int r = 0; r < keys.length; ++r) {
+            sum += 1 / Math.pow(r + 1, skew);
+            cumulative[r] = sum;
+        }
+        var random = new Random(seed);
+        Comparable[] rv = new Comparable[count];
+        for (int i = 0; i < count; ++i) {
+            int r = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            rv[i] = keys[Math.min((r < 0) ? ~r : r, keys.length - 1)];
+        }
+        return rv;
+    }
+
+    static String pad(int value) {
+        String sNumber = Integer.toString(value);
+        StringBuilder sb = new StringBuilder(MAX_WIDTH);
+        while (sb.length() < MAX_WIDTH - sNumber.length()) {
+            sb.append('0');
+        }
+        return sb.append(sNumber).toString();
+    }
+}
@@ -0,0 +1,352 @@
+package edu.farmingdale.m07binarysearchtree.benchmarks;
+
+import edu.farmingdale.m07binarysearchtree.BinarySearchTree;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+/**
+ * A macro load test: BinarySearchTree and TreeSet, one after the other in
+ * the same process, each fed the same Workload through four phases.
+ * <ul>
+ * <li>load: insert size keys in the key order</li>
+ * <li>mixed: ops operations in the insert/search/remove mix</li>
+ * <li>read: ops searches</li>
+ * <li>drain: remove every key handed out, in the order handed out</li>
+ * </ul>
+ * For each phase it prints the throughput (timing only the operations, not
+ * making them), latency percentiles from a log-linear histogram of every
+ * SAMPLE-th operation, timed on its own, and the share of operations that
+ * hit; after the load phase, the heap the structure holds.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar \
+ *     edu.farmingdale.m07binarysearchtree.benchmarks.LoadTest \
+ *     [--size 1e6] [--ops n] [--order all|SORTED,ZIPF,...] [--mix 50/40/10]
+ *     [--skew 0.99] [--balance AVL] [--seed 42]
+ * </pre>
+ * A run first does the same at 100_000 keys untimed, to warm up the JIT. At
+ * 10^8 keys each structure needs around 6 GB of heap (a node and a boxed
+ * Integer per key), so give the JVM -Xmx8g or so; only one of them is alive
+ * at a time. Sorted or adversarial orders with --balance NONE are
+ * quadratic; keep those small.
+ */
+public final class LoadTest {
+
+    // time one operation in this many
+    static final int SAMPLE = 8;
+    // operations are made this many at a time, outside the timed loop
+    static final int CHUNK = 1 << 16;
+    static final int WARMUP_SIZE = 100_000;
+
+    /**
+     * The three operations under test
+     */
+    interface Target {
+
+        boolean insert(Integer key);
+
+        boolean search(Integer key);
+
+        boolean remove(Integer key);
+    }
+
+    static final class TreeTarget implements Target {
+
+        final BinarySearchTree<Integer> tree;
+
+        TreeTarget(BinarySearchTree.Balance balance) {
+            tree = new BinarySearchTree<>(balance);
+        }
+
+        public boolean insert(Integer key) {
+            return tree.insert(key);
+        }
+
+        public boolean search(Integer key) {
+            return tree.search(key);
+        }
+
+        public boolean remove(Integer key) {
+            return tree.remove(key);
+        }
+    }
+
+    static final class SetTarget implements Target {
+
+        final TreeSet<Integer> set = new TreeSet<>();
+
+        public boolean insert(Integer key) {
+            return set.add(key);
+        }
+
+        public boolean search(Integer key) {
+            return set.contains(key);
+        }
+
+        public boolean remove(Integer key) {
+            return set.remove(key);
+        }
+    }
+
+    /**
+     * Latencies in buckets 1/16 of a power of two wide (so a percentile is
+     * within about 6%), exact below 16 ns
+     */
+    static final class Histogram {
+
+        private final long[] counts = new long[61 * 16];
+        private long total;
+        private long max;
+
+        void record(long nanos) {
+            int bucket;
+            if (nanos < 16) {
+                bucket = (int) Math.max(0, nanos);
+            } else {
+                int msb = 63 - Long.numberOfLeadingZeros(nanos);
+                bucket = (msb - 3) * 16 + (int) ((nanos >>> (msb - 4)) & 15);
+            }
+            ++counts[bucket];
+            ++total;
+            max = Math.max(max, nanos);
+        }
+
+        long percentile(double p) {
+            long rank = (long) Math.ceil(p / 100 * total);
+            long seen = 0;
+            for (int bucket = 0; bucket < counts.length; ++bucket) {
+                seen += counts[bucket];
+                if (seen >= rank && seen > 0) {
+                    return (bucket < 16) ? bucket : (16L + bucket % 16) << (bucket / 16 - 1);
+                }
+            }
+            return max;
+        }
+
+        long max() {
+            return max;
+        }
+    }
+
+    /**
+     * What one phase did
+     */
+    static final class PhaseResult {
+
+        final String phase;
+        final String target;
+        long ops;
+        long hits;
+        long nanos;
+        // held by the target at the end of the phase (load only; else -1)
+        long heapBytes = -1;
+        final Histogram latencies = new Histogram();
+
+        PhaseResult(String phase, String target) {
+            this.phase = phase;
+            this.target = target;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-7s %-26s %,12d %9.2f %7d %7d %7d %8d %9d %6.1f%% %s",
+                    phase, target, ops, ops * 1e3 / Math.max(1, nanos),
+                    latencies.percentile(50), latencies.percentile(90), latencies.percentile(99),
+                    latencies.percentile(99.9), latencies.max(), 100.0 * hits / Math.max(1, ops),
+                    (heapBytes < 0) ? "" : String.format(Locale.ROOT, "%,d", heapBytes >> 20));
+        }
+    }
+
+    private final long size;
+    private final long ops;
+    private final int insertPercent;
+    private final int searchPercent;
+    private final double skew;
+    private final long seed;
+
+    private final byte[] chunkOps = new byte[CHUNK];
+    private final Integer[] chunkKeys = new Integer[CHUNK];
+
+    LoadTest(long size, long ops, int insertPercent, int searchPercent, double skew, long seed) {
+        this.size = size;
+        this.ops = ops;
+        this.insertPercent = insertPercent;
+        this.searchPercent = searchPercent;
+        this.skew = skew;
+        this.seed = seed;
+    }
+
+    /**
+     * All four phases against one target
+     */
+    List<PhaseResult> run(Workload.KeyOrder order, Target target, String name) {
+        var workload = new Workload(order, size + ops, insertPercent, searchPercent, skew, seed);
+        var rv = new ArrayList<PhaseResult>();
+        long heapBefore = usedHeap();
+
+        PhaseResult load = new PhaseResult("load", name);
+        for (long done = 0; done < size; done += CHUNK) {
+            int count = (int) Math.min(CHUNK, size - done);
+            for (int i = 0; i < count; ++i) {
+                chunkOps[i] = (byte) Workload.Op.INSERT.ordinal();
+                chunkKeys[i] = workload.nextInsertKey();
+            }
+            runChunk(target, count, load);
+        }
+        load.heapBytes = usedHeap() - heapBefore;
+        rv.add(load);
+
+        PhaseResult mixed = new PhaseResult("mixed", name);
+        for (long done = 0; done < ops; done += CHUNK) {
+            int count = (int) Math.min(CHUNK, ops - done);
+            for (int i = 0; i < count; ++i) {
+                Workload.Op op = workload.nextOp();
+                chunkOps[i] = (byte) op.ordinal();
+                chunkKeys[i] = (op == Workload.Op.INSERT) ? workload.nextInsertKey() : workload.existingKey();
+            }
+            runChunk(target, count, mixed);
+        }
+        rv.add(mixed);
+
+        PhaseResult read = new PhaseResult("read", name);
+        for (long done = 0; done < ops; done += CHUNK) {
+            int count = (int) Math.min(CHUNK, ops - done);
+            for (int i = 0; i < count; ++i) {
+                chunkOps[i] = (byte) Workload.Op.SEARCH.ordinal();
+                chunkKeys[i] = workload.existingKey();
+            }
+            runChunk(target, count, read);
+        }
+        rv.add(read);
+
+        PhaseResult drain = new PhaseResult("drain", name);
+        long issued = workload.issued();
+        for (long done = 0; done < issued; done += CHUNK) {
+            int count = (int) Math.min(CHUNK, issued - done);
+            for (int i = 0; i < count; ++i) {
+                chunkOps[i] = (byte) Workload.Op.REMOVE.ordinal();
+                chunkKeys[i] = workload.key(done + i);
+            }
+            runChunk(target, count, drain);
+        }
+        rv.add(drain);
+        return rv;
+    }
+
+    private void runChunk(Target target, int count, PhaseResult into) {
+        long hits = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < count; ++i) {
+            if (i % SAMPLE == 0) {
+                long before = System.nanoTime();
+                hits += apply(target, chunkOps[i], chunkKeys[i]) ? 1 : 0;
+                into.latencies.record(System.nanoTime() - before);
+            } else {
+                hits += apply(target, chunkOps[i], chunkKeys[i]) ? 1 : 0;
+            }
+        }
+        into.nanos += System.nanoTime() - start;
+        into.ops += count;
+        into.hits += hits;
+    }
+
+    private static boolean apply(Target target, byte op, Integer key) {
+        switch (op) {
+            case 0:
+                return target.insert(key);
+            case 1:
+                return target.search(key);
+            default:
+                return target.remove(key);
+        }
+    }
+
+    private static long count(String s) {
+        // allow 1e8 as well as 100000000 and 100_000_000
+        return (long) Double.parseDouble(s.replace("_", ""));
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static void main(String[] args) {
+        long size = 1_000_000;
+        long ops = -1;
+        List<Workload.KeyOrder> orders = List.of(Workload.KeyOrder.values());
+        int[] mix = {50, 40, 10};
+        double skew = 0.99;
+        BinarySearchTree.Balance balance = BinarySearchTree.Balance.AVL;
+        long seed = 42;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--size":
+                    size = count(args[i + 1]);
+                    break;
+                case "--ops":
+                    ops = count(args[i + 1]);
+                    break;
+                case "--order":
+                    if (!"all".equalsIgnoreCase(args[i + 1])) {
+                        var chosen = new ArrayList<Workload.KeyOrder>();
+                        for (String name : args[i + 1].split(",")) {
+                            chosen.add(Workload.KeyOrder.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+                        }
+                        orders = chosen;
+                    }
+                    break;
+                case "--mix":
+                    String[] parts = args[i + 1].split("/");
+                    mix = new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2])};
+                    break;
+                case "--skew":
+                    skew = Double.parseDouble(args[i + 1]);
+                    break;
+                case "--balance":
+                    balance = BinarySearchTree.Balance.valueOf(args[i + 1].toUpperCase(Locale.ROOT));
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        if (ops < 0) {
+            ops = size;
+        }
+        if (mix[0] + mix[1] + mix[2] != 100) {
+            throw new IllegalArgumentException("the mix must add up to 100");
+        }
+        String treeName = "BinarySearchTree(" + balance + ")";
+
+        // warm up both on a small run of every order, and throw it away
+        var warmup = new LoadTest(Math.min(size, WARMUP_SIZE), Math.min(ops, WARMUP_SIZE), mix[0], mix[1], skew, seed + 1);
+        for (Workload.KeyOrder order : orders) {
+            if (balance != BinarySearchTree.Balance.NONE) {
+                warmup.run(order, new TreeTarget(balance), treeName);
+            }
+            warmup.run(order, new SetTarget(), "TreeSet");
+        }
+
+        var test = new LoadTest(size, ops, mix[0], mix[1], skew, seed);
+        System.out.printf(Locale.ROOT, "%,d keys, %,d operations, mix %d/%d/%d insert/search/remove, Zipf skew %.2f, "
+                + "latency of 1 in %d operations%n", size, ops, mix[0], mix[1], mix[2], skew, SAMPLE);
+        for (Workload.KeyOrder order : orders) {
+            System.out.println();
+            System.out.println(order);
+            System.out.printf("%-7s %-26s %12s %9s %7s %7s %7s %8s %9s %7s %s%n",
+                    "phase", "target", "ops", "Mops/s", "p50 ns", "p90", "p99", "p99.9", "max", "hits", "heap MB");
+            for (PhaseResult result : test.run(order, new TreeTarget(balance), treeName)) {
+                System.out.println(result);
+            }
+            for (PhaseResult result : test.run(order, new SetTarget(), "TreeSet")) {
+                System.out.println(result);
+            }
+        }
+    }
+}
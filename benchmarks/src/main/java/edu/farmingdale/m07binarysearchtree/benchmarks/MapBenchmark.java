@@ -0,0 +1,59 @@
+package edu.farmingdale.m07binarysearchtree.benchmarks;
+
+import edu.farmingdale.m07binarysearchtree.BinarySearchMap;
+import edu.farmingdale.m07binarysearchtree.BinarySearchTree;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Upserts: counting Zipf-distributed padded string keys with merge(), into
+ * an empty BinarySearchMap (AVL) or TreeMap each pass. Scores are
+ * microseconds per pass of LOOKUPS upserts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class MapBenchmark {
+
+    static final int LOOKUPS = 1_000_000;
+
+    @Param({"BinarySearchMap", "TreeMap"})
+    String map;
+
+    @Param({"100000"})
+    int size;
+
+    Comparable[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = Keys.zipf(Keys.make(size, Keys.KeyType.STRING, Keys.Order.RANDOM, false, 42), LOOKUPS, 0.99, 7);
+    }
+
+    @Benchmark
+    public Map count() {
+        Map<Comparable, Integer> counts = "TreeMap".equals(map)
+                ? new TreeMap<>() : new BinarySearchMap<>(BinarySearchTree.Balance.AVL);
+        for (Comparable key : keys) {
+            counts.merge(key, 1, Integer::sum);
+        }
+        return counts;
+    }
+}
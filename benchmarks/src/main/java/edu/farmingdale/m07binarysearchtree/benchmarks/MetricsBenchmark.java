@@ -0,0 +1,64 @@
+package edu.farmingdale.m07binarysearchtree.benchmarks;
+
+import edu.farmingdale.m07binarysearchtree.BinarySearchTree;
+import edu.farmingdale.m07binarysearchtree.JfrTreeMetrics;
+import edu.farmingdale.m07binarysearchtree.MetricsRecorder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The cost of the metrics surface on lookups: no sink (the default), the
+ * counting MetricsRecorder, and the JFR sink with no recording running.
+ * Scores are microseconds per pass of size lookups.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class MetricsBenchmark {
+
+    @Param({"OFF", "RECORDER", "JFR"})
+    String sink;
+
+    @Param({"100000"})
+    int size;
+
+    Comparable[] keys;
+    BinarySearchTree tree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = Keys.make(size, Keys.KeyType.INTEGER, Keys.Order.RANDOM, false, 42);
+        tree = new BinarySearchTree(BinarySearchTree.Balance.AVL);
+        for (Comparable key : keys) {
+            tree.insert(key);
+        }
+        if ("RECORDER".equals(sink)) {
+            tree.setMetrics(new MetricsRecorder());
+        } else if ("JFR".equals(sink)) {
+            tree.setMetrics(new JfrTreeMetrics());
+        }
+    }
+
+    @Benchmark
+    public void searchHit(Blackhole bh) {
+        for (Comparable key : keys) {
+            bh.consume(tree.search(key));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package edu.farmingdale.m07binarysearchtree.benchmarks;
+
+import edu.farmingdale.m07binarysearchtree.BinarySearchTree;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Zipf-distributed lookups (a few keys get most of the traffic) in the
+ * unbalanced, AVL and splay trees, built from the same keys in random
+ * order. skew 0 is uniform traffic, where splaying only costs. Scores are
+ * microseconds per pass of LOOKUPS lookups.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class SplayBenchmark {
+
+    static final int LOOKUPS = 100_000;
+
+    @Param({"NONE", "AVL", "SPLAY"})
+    BinarySearchTree.Balance balance;
+
+    @Param({"0", "1.2"})
+    double skew;
+
+    @Param({"INTEGER", "STRING"})
+    Keys.KeyType keyType;
+
+    @Param({"1000000"})
+    int size;
+
+    Comparable[] lookups;
+    BinarySearchTree tree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Comparable[] keys = Keys.make(size, keyType, Keys.Order.RANDOM, false, 42);
+        tree = new BinarySearchTree(balance);
+        for (Comparable key : keys) {
+            tree.insert(key);
+        }
+        lookups = Keys.zipf(keys, LOOKUPS, skew, 7);
+    }
+
+    @Benchmark
+    public void search(Blackhole bh) {
+        for (Comparable key : lookups) {
+            bh.consume(tree.search(key));
+        }
+    }
+}
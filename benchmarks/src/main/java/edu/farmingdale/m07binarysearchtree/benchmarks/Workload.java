@@ -0,0 +1,161 @@
+package edu.farmingdale.m07binarysearchtree.benchmarks;
+
+import java.util.Random;
+
+/**
+ * A stream of tree operations for load tests, generated as it goes so that
+ * it scales to 10^8 keys without holding them. The keys handed to inserts
+ * are key(0), key(1), ..., in an order chosen by a KeyOrder; searches and
+ * removes go to keys already handed out, picked uniformly, or by a Zipf
+ * distribution (hot keys first) for KeyOrder.ZIPF. Two workloads made with
+ * the same arguments produce the same operations, so implementations can be
+ * compared on identical streams.
+ */
+public final class Workload {
+
+    public enum KeyOrder {
+        /** ascending, as an append-only log */
+        SORTED,
+        /** descending */
+        REVERSE,
+        /** scattered over the int range with no repeats */
+        UNIFORM,
+        /** inserted like UNIFORM; searches and removes favour a few keys */
+        ZIPF,
+        /** ascending runs of 64 keys, each run somewhere random */
+        CLUSTERED,
+        /**
+         * zig-zag between the smallest and largest keys not yet used: a
+         * path for an unbalanced tree, a rotation at nearly every insert
+         * for a balanced one
+         */
+        ADVERSARIAL
+    }
+
+    public enum Op {
+        INSERT,
+        SEARCH,
+        REMOVE
+    }
+
+    private static final int RUN_BITS = 6;
+
+    private final KeyOrder order;
+    // how many keys the stream can hand out; fixes REVERSE and ADVERSARIAL
+    private final long capacity;
+    private final int insertPercent;
+    private final int searchPercent;
+    private final double skew;
+    private final Random random;
+    private long issued;
+
+    /**
+     * @param order how the keys are ordered
+     * @param capacity the most keys nextInsertKey() will be asked for (at
+     * most 2^31)
+     * @param insertPercent the share of inserts from nextOp()
+     * @param searchPercent the share of searches; the rest are removes
+     * @param skew the Zipf exponent for KeyOrder.ZIPF
+     * @param seed the random seed
+     */
+    public Workload(KeyOrder order, long capacity, int insertPercent, int searchPercent, double skew, long seed) {
+        if (capacity > 1L << 31 || insertPercent < 0 || searchPercent < 0 || insertPercent + searchPercent > 100) {
+            throw new IllegalArgumentException();
+        }
+        this.order = order;
+        this.capacity = capacity;
+        this.insertPercent = insertPercent;
+        this.searchPercent = searchPercent;
+        this.skew = skew;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * The key at a position of the stream. Distinct positions (below the
+     * capacity) give distinct keys.
+     *
+     * @param index the position
+     * @return the key
+     */
+    public int key(long index) {
+        switch (order) {
+            case SORTED:
+                return (int) index;
+            case REVERSE:
+                return (int) (capacity - 1 - index);
+            case CLUSTERED:
+                return (scatter(index >>> RUN_BITS, 31 - RUN_BITS) << RUN_BITS) | (int) (index & ((1 << RUN_BITS) - 1));
+            case ADVERSARIAL:
+                return (int) (((index & 1) == 0) ? index / 2 : capacity - 1 - index / 2);
+            default:
+                return scatter(index, 31);
+        }
+    }
+
+    /**
+     * @return the next key for an insert
+     */
+    public int nextInsertKey() {
+        return key(issued++);
+    }
+
+    /**
+     * @return how many keys nextInsertKey() has handed out
+     */
+    public long issued() {
+        return issued;
+    }
+
+    /**
+     * @return a key already handed out (it may have been removed since)
+     */
+    public int existingKey() {
+        if (0 == issued) {
+            return key(0);
+        }
+        return key((order == KeyOrder.ZIPF) ? zipfIndex(issued) : (long) (random.nextDouble() * issued));
+    }
+
+    /**
+     * @return the next operation of a mix
+     */
+    public Op nextOp() {
+        int draw = random.nextInt(100);
+        if (draw < insertPercent) {
+            return Op.INSERT;
+        }
+        return (draw < insertPercent + searchPercent) ? Op.SEARCH : Op.REMOVE;
+    }
+
+    /**
+     * A Zipf-distributed position below n: position r (0 based) with
+     * probability close to 1 / (r+1)^skew. The exact distribution needs a
+     * table as long as the stream, so this inverts the continuous power law
+     * instead, which is close enough for a load test.
+     */
+    private long zipfIndex(long n) {
+        double u = random.nextDouble();
+        double x;
+        if (Math.abs(skew - 1) < 1e-9) {
+            x = Math.exp(u * Math.log(n + 1.0));
+        } else {
+            double a = 1 - skew;
+            x = Math.pow(u * (Math.pow(n + 1.0, a) - 1) + 1, 1 / a);
+        }
+        return Math.min(n - 1, Math.max(0, (long) x - 1));
+    }
+
+    /**
+     * A bijection on [0, 2^bits): multiplying by an odd number and xor with
+     * a right shift are each invertible modulo a power of two
+     */
+    private static int scatter(long value, int bits) {
+        long mask = (1L << bits) - 1;
+        long x = value & mask;
+        x = (x * 0x9E3779B1L) & mask;
+        x ^= x >>> (bits / 2);
+        x = (x * 0x85EBCA6BL) & mask;
+        x ^= x >>> (bits / 3);
+        return (int) x;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Inserts sorted keys (the worst case for an unbalanced tree) into an AVL
+ * mode tree, checks that the height stays logarithmic, then removes a mix of
+ * keys and checks the content against a TreeSet.
+ *
+ * @author gerstl
+ */
+public class BalancedBinarySearchTreeTest implements RunTest {
+
+    public String runTest() {
+        BinarySearchTree<Integer> theTree = new BinarySearchTree<>(BinarySearchTree.Balance.AVL);
+        Set<Integer> theSet = new TreeSet<>();
+        final int TEST_SIZE = 100_000;
+        for (int i = 0; i < TEST_SIZE; ++i) {
+            if (!theTree.insert(i)) {
+                return "Failed at B0100";
+            }
+            theSet.add(i);
+        }
+        // an AVL tree is never taller than 1.44 log2(n+2)
+        double maxHeight = 1.44 * Math.log(TEST_SIZE + 2) / Math.log(2);
+        if (theTree.height() > maxHeight) {
+            System.out.println("Height of sorted AVL tree is " + theTree.height());
+            return "Failed at B0101";
+        }
+        if (theTree.insert(TEST_SIZE / 2)) {
+            return "Failed at B0102";
+        }
+        // remove random elements, including ones that are not there
+        var random = new Random();
+        for (int i = 0; i < TEST_SIZE / 2; ++i) {
+            int aNumber = random.nextInt(TEST_SIZE * 2);
+            if (theTree.remove(aNumber) != theSet.remove(aNumber)) {
+                return "Failed at B0103";
+            }
+        }
+        if (theTree.height() > maxHeight) {
+            return "Failed at B0104";
+        }
+        // the in-order iterator must match the set exactly
+        Iterator<Integer> setIterator = theSet.iterator();
+        for (Integer element : theTree) {
+            if (!setIterator.hasNext() || !setIterator.next().equals(element)) {
+                return "Failed at B0105";
+            }
+        }
+        if (setIterator.hasNext()) {
+            return "Failed at B0106";
+        }
+        for (int i = 0; i < TEST_SIZE; ++i) {
+            if (theTree.search(i) != theSet.contains(i)) {
+                return "Failed at B0107";
+            }
+        }
+        return "";
+    }
+
+    public String getTestName() {
+        return "Balanced Binary Search Tree Test";
+    }
+}
@@ -0,0 +1,397 @@
+/*
+ * (c) David Gerstl, 2021. all rights reserved. For use
+ * in my CSC programming classes
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A sorted map on a BinarySearchTree of keys whose nodes also carry a value,
+ * so attaching a value to a key needs no wrapper key type. get, put,
+ * computeIfAbsent, merge and remove each make a single descent (an upsert
+ * does not search and then insert), and a node is only allocated when a key
+ * is actually added. The tree does the balancing (any Balance mode) and
+ * keeps the cached sizes and hashes.
+ *
+ * Keys must not be null, and are ordered by the comparator, or naturally
+ * (as in TreeMap) if there is none. Values may be null, except that, as in
+ * java.util.Map, computeIfAbsent and merge treat a null value as absent.
+ *
+ * @author gerstl
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class BinarySearchMap<K, V> extends AbstractMap<K, V> {
+
+    private final EntryTree tree;
+    private EntrySet entrySet;
+
+    // where the last descend() that missed would hang the new key
+    private BinarySearchTree<K>.Node<K> insertParent;
+    private int insertSide;
+
+    /**
+     * An unbalanced map in the keys' natural order
+     */
+    public BinarySearchMap() {
+        this(null, BinarySearchTree.Balance.NONE);
+    }
+
+    /**
+     * @param balance how the tree of keys is balanced
+     */
+    public BinarySearchMap(BinarySearchTree.Balance balance) {
+        this(null, balance);
+    }
+
+    /**
+     * @param comparator orders the keys; null for natural ordering
+     * @param balance how the tree of keys is balanced
+     */
+    public BinarySearchMap(Comparator<? super K> comparator, BinarySearchTree.Balance balance) {
+        tree = new EntryTree(comparator, balance);
+    }
+
+    /**
+     * @return the ordering of the keys, null for natural ordering
+     */
+    public Comparator<? super K> comparator() {
+        return tree.comparator();
+    }
+
+    @Override
+    public int size() {
+        return tree.numberOfNodes();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return tree.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        tree.clear();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Entry e = descend(key);
+        if (null == e) {
+            missed();
+        }
+        return null != e;
+    }
+
+    @Override
+    public V get(Object key) {
+        Entry e = descend(key);
+        if (null == e) {
+            missed();
+            return null;
+        }
+        return e.value;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Entry e = descend(key);
+        if (null != e) {
+            V old = e.value;
+            e.value = value;
+            return old;
+        }
+        add(key, value);
+        return null;
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Entry e = descend(key);
+        if (null != e && null != e.value) {
+            return e.value;
+        }
+        BinarySearchTree<K>.Node<K> parent = insertParent;
+        int side = insertSide;
+        int before = tree.modCount;
+        V value = mappingFunction.apply(key);
+        if (tree.modCount != before) {
+            // the function changed the map, so the place found is stale
+            throw new ConcurrentModificationException();
+        }
+        if (null == value) {
+            if (null == e) {
+                insertParent = parent;
+                missed();
+            }
+            return null;
+        }
+        if (null != e) {
+            e.value = value;
+        } else if (isFree(parent, side)) {
+            insertParent = parent;
+            insertSide = side;
+            add(key, value);
+        } else {
+            // in SPLAY mode a lookup inside the function may have rotated
+            // the tree; rotations keep the gap a free slot stands for, but
+            // the slot may be gone, so look again
+            descend(key);
+            add(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(value);
+        Entry e = descend(key);
+        if (null == e) {
+            add(key, value);
+            return value;
+        }
+        if (null == e.value) {
+            e.value = value;
+            return value;
+        }
+        int before = tree.modCount;
+        V merged = remappingFunction.apply(e.value, value);
+        if (tree.modCount != before) {
+            throw new ConcurrentModificationException();
+        }
+        if (null == merged) {
+            tree.removeNode(e);
+        } else {
+            e.value = merged;
+        }
+        return merged;
+    }
+
+    @Override
+    public V remove(Object key) {
+        Entry e = descend(key);
+        if (null == e) {
+            missed();
+            return null;
+        }
+        V old = e.value;
+        tree.removeNode(e);
+        return old;
+    }
+
+    /**
+     * The entries in key order. Its iterator can remove, and its entries'
+     * setValue() writes through to the map.
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (null == entrySet) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /**
+     * The one descent every operation makes. On a hit, the entry (splayed
+     * to the root in SPLAY mode). On a miss, null, with the node the key
+     * would hang from and the side left in insertParent and insertSide; the
+     * caller either adds the key there (and the new node is splayed) or
+     * calls missed().
+     */
+    private Entry descend(Object key) {
+        Objects.requireNonNull(key);
+        BinarySearchTree<K>.Node<K> current = tree.rootNode();
+        BinarySearchTree<K>.Node<K> trail = null;
+        int comparison = 0;
+        while (null != current) {
+            trail = current;
+            comparison = tree.compare(key, current.data);
+            if (comparison == 0) {
+                tree.splayIfSplaying(current);
+                return entry(current);
+            }
+            current = (comparison < 0) ? current.leftChild : current.rightChild;
+        }
+        insertParent = trail;
+        insertSide = comparison;
+        return null;
+    }
+
+    // in SPLAY mode, pay for a miss that added nothing by splaying the last
+    // node reached; not before, as it would move the place found
+    private void missed() {
+        tree.splayIfSplaying(insertParent);
+    }
+
+    private boolean isFree(BinarySearchTree<K>.Node<K> parent, int side) {
+        if (null == parent) {
+            return null == tree.root;
+        }
+        return null == ((side < 0) ? parent.leftChild : parent.rightChild);
+    }
+
+    // hang a new entry where the last descend() missed
+    private void add(K key, V value) {
+        Entry e = entry(tree.attach(insertParent, insertSide, key));
+        e.value = value;
+    }
+
+    // every node of the tree is an Entry (EntryTree.newNode() makes no
+    // other kind); the cast is unchecked only because Entry is an inner
+    // class of a generic class
+    @SuppressWarnings("unchecked")
+    private Entry entry(BinarySearchTree<K>.Node<K> node) {
+        return (Entry) node;
+    }
+
+    /**
+     * The tree of keys, making Entry nodes and moving values along with
+     * keys. It stays private to the map, so none of the tree operations
+     * that build nodes from bare keys (insertAll, the set algebra) can reach
+     * it.
+     */
+    private final class EntryTree extends BinarySearchTree<K> {
+
+        EntryTree(Comparator<? super K> comparator, Balance balance) {
+            super(comparator, balance);
+        }
+
+        @Override
+        Node<K> newNode(Node<K> theParent) {
+            return new Entry(this, theParent);
+        }
+
+        @Override
+        void takeContent(Node<K> to, Node<K> from) {
+            super.takeContent(to, from);
+            entry(to).value = entry(from).value;
+        }
+    }
+
+    /**
+     * A node of the tree that carries a value
+     */
+    private final class Entry extends BinarySearchTree<K>.Node<K> implements Map.Entry<K, V> {
+
+        V value;
+
+        Entry(EntryTree owner, BinarySearchTree<K>.Node<K> theParent) {
+            owner.super(theParent);
+        }
+
+        @Override
+        public K getKey() {
+            return data;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V old = this.value;
+            this.value = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            return data.equals(other.getKey()) && Objects.equals(value, other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return data.hashCode() ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return data + "=" + value;
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return tree.numberOfNodes();
+        }
+
+        @Override
+        public void clear() {
+            tree.clear();
+        }
+    }
+
+    /**
+     * In key order along the parent links. remove() hands the node to the
+     * tree, which says which node holds the next entry afterwards.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+        private BinarySearchTree<K>.Node<K> next = tree.rootNode();
+        private BinarySearchTree<K>.Node<K> lastReturned;
+        private int expectedModCount = tree.modCount;
+
+        EntryIterator() {
+            // BinaryTree.leftmost() is raw, so walk down here
+            while (null != next && null != next.leftChild) {
+                next = next.leftChild;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return null != next;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, V> next() {
+            if (tree.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (null == next) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next;
+            next = tree.successor(next);
+            return entry(lastReturned);
+        }
+
+        @Override
+        public void remove() {
+            if (null == lastReturned) {
+                throw new IllegalStateException();
+            }
+            if (tree.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            next = tree.removeNode(lastReturned);
+            lastReturned = null;
+            expectedModCount = tree.modCount;
+        }
+    }
+}
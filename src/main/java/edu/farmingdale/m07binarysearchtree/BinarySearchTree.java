@@ -5,120 +5,400 @@
 package edu.farmingdale.m07binarysearchtree;
 
 import java.util.Iterator;
-import com.google.gson.*; // for cloning
-import com.google.gson.reflect.TypeToken; // for cloning
-import java.lang.reflect.Type; // for cloning
+import com.google.gson.*; // for cloning mutable elements
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
 import java.util.NoSuchElementException;
-import java.util.Stack;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  *
  * @author gerstl
  * @param <T>
  */
-public class BinarySearchTree<T extends Comparable<T>> extends BinaryTree<T> implements Iterable<T> {
+public class BinarySearchTree<T> extends BinaryTree<T> implements Iterable<T> {
 
     /**
-     * Recursively copy a node (the content of the node is copied using gson)
+     * How (if at all) the tree keeps itself balanced. NONE is the classic
+     * unbalanced BST, where sorted input degenerates into a list. AVL rotates
+     * on insert and remove so the height stays below 1.44 log2(n). SPLAY
+     * moves the node each insert, search and remove reaches to the root,
+     * so recently used elements are near the top: any sequence of
+     * operations costs O(log n) amortized each, and a small set of hot
+     * elements costs close to O(1). A search then changes the shape of the
+     * tree, so a SPLAY tree is not safe for concurrent readers.
+     */
+    public enum Balance {
+        NONE,
+        AVL,
+        SPLAY
+    }
+
+    protected Balance balance;
+
+    // the ordering; null means the elements' natural ordering (Comparable),
+    // as in java.util.TreeMap
+    protected Comparator<? super T> comparator;
+
+    // write-ahead journal of changes; null when journaling is off
+    private TreeJournal<T> journal;
+
+    // bumped by every change to the content (or the nodes holding it), so
+    // cursors and iterators can tell they have gone stale. Rotations do not count: they
+    // keep every element in its node.
+    int modCount;
+
+    // subtrees smaller than this are copied on one thread
+    static final int PARALLEL_COPY_THRESHOLD = 1 << 14;
+
+    // element types whose instances can be shared between copies as is
+    private static final Set<Class<?>> IMMUTABLE_TYPES = Set.of(
+            String.class, Integer.class, Long.class, Short.class, Byte.class,
+            Character.class, Boolean.class, Double.class, Float.class,
+            BigInteger.class, BigDecimal.class);
+
+    private static final Gson GSON = new Gson();
+
+    /**
+     * The copier used when the caller does not supply one. Immutable values
+     * (String, the boxed primitives, BigInteger/BigDecimal, enums) are
+     * shared; anything else is deep copied through a gson round trip of its
+     * runtime class.
+     *
+     * @param copyMe an element
+     * @return an element equal to copyMe that shares no mutable state with it
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T defaultCopy(T copyMe) {
+        if (null == copyMe) {
+            return null;
+        }
+        Class<?> theClass = copyMe.getClass();
+        if (IMMUTABLE_TYPES.contains(theClass) || theClass.isEnum()) {
+            return copyMe;
+        }
+        return (T) GSON.fromJson(GSON.toJson(copyMe), theClass);
+    }
+
+    /**
+     * Copy a node and the tree below it. The copy is iterative, so any depth
+     * is fine, and when the subtree is large the pieces below
+     * PARALLEL_COPY_THRESHOLD are copied in parallel on the common fork-join
+     * pool.
      *
      * @param copyMe a node to copy
+     * @param copier makes the copy of each element
      * @return a node that is the root of a copy of the tree copyMe
      */
-    Node<T> deepCopyNode(Node<T> copyMe) {
+    Node<T> deepCopyNode(Node<T> copyMe, UnaryOperator<T> copier) {
         if (null == copyMe) {
             return null;
         }
-        Node<T> rv = new Node();
-        Gson gson = new Gson();
-        Type typeOfT = new TypeToken<T>() {
-        }.getType();
-        rv.data = gson.fromJson(gson.toJson(copyMe.data), typeOfT);
-        rv.leftChild = deepCopyNode(copyMe.leftChild);
-        if (null != rv.leftChild) {
-            rv.leftChild.parent = rv;
+        if (copyMe.size < PARALLEL_COPY_THRESHOLD) {
+            return copySubtree(copyMe, copier);
+        }
+        // copy the top of the tree (where subtrees are still large) here and
+        // queue everything below the threshold as an independent task
+        var tasks = new ArrayList<SubtreeCopy>();
+        Node<T> rv = copyOneNode(copyMe, null, copier);
+        var from = new ArrayDeque<Node<T>>();
+        var to = new ArrayDeque<Node<T>>();
+        from.push(copyMe);
+        to.push(rv);
+        while (!from.isEmpty()) {
+            Node<T> source = from.pop();
+            Node<T> target = to.pop();
+            for (int side = 0; side < 2; ++side) {
+                Node<T> child = (side == 0) ? source.leftChild : source.rightChild;
+                if (null == child) {
+                    continue;
+                }
+                if (child.size < PARALLEL_COPY_THRESHOLD) {
+                    tasks.add(new SubtreeCopy(child, target, side == 0, copier));
+                } else {
+                    Node<T> copy = copyOneNode(child, target, copier);
+                    if (side == 0) {
+                        target.leftChild = copy;
+                    } else {
+                        target.rightChild = copy;
+                    }
+                    from.push(child);
+                    to.push(copy);
+                }
+            }
+        }
+        ForkJoinTask.invokeAll(tasks);
+        for (SubtreeCopy task : tasks) {
+            task.attach();
+        }
+        return rv;
+    }
+
+    /**
+     * Copies one subtree on whatever thread runs it. The result is linked
+     * into the copy by attach(), on the calling thread, once all are done.
+     */
+    private class SubtreeCopy extends RecursiveAction {
+
+        private final Node<T> source;
+        private final Node<T> targetParent;
+        private final boolean isLeft;
+        private final UnaryOperator<T> copier;
+        private Node<T> result;
+
+        SubtreeCopy(Node<T> source, Node<T> targetParent, boolean isLeft, UnaryOperator<T> copier) {
+            this.source = source;
+            this.targetParent = targetParent;
+            this.isLeft = isLeft;
+            this.copier = copier;
+        }
+
+        @Override
+        protected void compute() {
+            result = copySubtree(source, copier);
+        }
+
+        void attach() {
+            result.parent = targetParent;
+            if (isLeft) {
+                targetParent.leftChild = result;
+            } else {
+                targetParent.rightChild = result;
+            }
         }
-        rv.rightChild = deepCopyNode(copyMe.rightChild);
-        if (null != rv.rightChild) {
-            rv.rightChild.parent = rv;
+    }
+
+    /**
+     * Iterative pre-order copy of a subtree on the current thread
+     */
+    private Node<T> copySubtree(Node<T> copyMe, UnaryOperator<T> copier) {
+        Node<T> rv = copyOneNode(copyMe, null, copier);
+        var from = new ArrayDeque<Node<T>>();
+        var to = new ArrayDeque<Node<T>>();
+        from.push(copyMe);
+        to.push(rv);
+        while (!from.isEmpty()) {
+            Node<T> source = from.pop();
+            Node<T> target = to.pop();
+            if (null != source.leftChild) {
+                target.leftChild = copyOneNode(source.leftChild, target, copier);
+                from.push(source.leftChild);
+                to.push(target.leftChild);
+            }
+            if (null != source.rightChild) {
+                target.rightChild = copyOneNode(source.rightChild, target, copier);
+                from.push(source.rightChild);
+                to.push(target.rightChild);
+            }
         }
         return rv;
     }
 
+    private Node<T> copyOneNode(Node<T> copyMe, Node<T> theParent, UnaryOperator<T> copier) {
+        Node<T> rv = new Node<T>(theParent);
+        rv.data = copier.apply(copyMe.data);
+        rv.height = copyMe.height;
+        rv.size = copyMe.size;
+        rv.hash = copyMe.hash;
+        return rv;
+    }
+
     /**
-     * Copy ctor. Uses deepCopyNode()
+     * Copy ctor. Uses deepCopyNode() with the default element copier
      *
      * @param copyMe The other tree to copy
      */
     public BinarySearchTree(BinarySearchTree copyMe) {
-        // set verbose first so deepCopy can print
-        verbose = copyMe.verbose;
-        if (verbose) {
-            System.err.println("Copying this tree: " + copyMe);
-        }
-        root = deepCopyNode(copyMe.root);
+        this(copyMe, BinarySearchTree::defaultCopy);
+    }
+
+    /**
+     * Copy ctor with a caller supplied element copier. Pass
+     * UnaryOperator.identity() to share the elements with copyMe.
+     *
+     * @param copyMe The other tree to copy
+     * @param copier makes the copy of each element
+     */
+    public BinarySearchTree(BinarySearchTree<T> copyMe, UnaryOperator<T> copier) {
+        balance = copyMe.balance;
+        comparator = copyMe.comparator;
+        root = deepCopyNode(copyMe.root, copier);
+        rehash();
     }
 
     /**
-     * Default ctor
+     * Default ctor. The tree is not balanced and uses the elements' natural
+     * ordering (they must be Comparable)
      */
     public BinarySearchTree() {
-        root = null;
-        verbose = false;
+        this(null, Balance.NONE);
     }
 
     /**
-     * Deep copy a tree (using deepCopyNode)
+     * Ctor choosing the balancing mode. The elements' natural ordering is
+     * used (they must be Comparable)
      *
-     * @param copyMe The tree to clone
+     * @param balance Balance.AVL to keep the tree height logarithmic
      */
-    public void clone(BinarySearchTree copyMe) {
-        root = deepCopyNode(copyMe.root);
+    public BinarySearchTree(Balance balance) {
+        this(null, balance);
     }
 
     /**
-     * Iterator--this iterator returns the node content IN ORDER
+     * Ctor choosing the ordering. The tree is not balanced
      *
-     * @return an iterator that produces nodes in order.
+     * @param comparator orders the elements; null for natural ordering
      */
-    public Iterator<T> iterator() {
+    public BinarySearchTree(Comparator<? super T> comparator) {
+        this(comparator, Balance.NONE);
+    }
+
+    /**
+     * Ctor choosing the ordering and the balancing mode. The comparator is
+     * called exactly once per level of every descent, and on nothing else:
+     * a specialized one (see KeyComparators) is the cheapest way to speed up
+     * a tree of keys with an expensive natural ordering.
+     *
+     * @param comparator orders the elements; null for natural ordering
+     * @param balance Balance.AVL to keep the tree height logarithmic
+     */
+    public BinarySearchTree(Comparator<? super T> comparator, Balance balance) {
+        root = null;
+        this.comparator = comparator;
+        this.balance = balance;
+    }
 
-        Iterator<T> iterRv = new Iterator<T>() {
+    /**
+     * Compare two elements by the tree's ordering
+     */
+    @SuppressWarnings("unchecked")
+    final int compare(Object a, Object b) {
+        return (null == comparator) ? ((Comparable<Object>) a).compareTo(b)
+                : ((Comparator<Object>) comparator).compare(a, b);
+    }
 
-            private Stack<Node<T>> s = new Stack<>();
-            private Node<T> curr = root;
+    /**
+     * @return the tree's ordering, null for natural ordering
+     */
+    public Comparator<? super T> comparator() {
+        return comparator;
+    }
 
-            @Override
-            public boolean hasNext() {
-                
-                return (!s.isEmpty() || curr != null);
+    /**
+     * Build a perfectly balanced tree from elements that are already in
+     * strictly ascending order (e.g. a snapshot or a TreeSet). This is linear:
+     * there is no descent or comparison per element beyond the order check.
+     *
+     * @param <T> the element type
+     * @param sorted the elements in strictly ascending order
+     * @param balance the mode the new tree uses for later inserts/removes
+     * @return a new tree holding the elements
+     * @throws IllegalArgumentException if sorted is not strictly ascending
+     */
+    public static <T extends Comparable<T>> BinarySearchTree<T> fromSorted(Collection<? extends T> sorted, Balance balance) {
+        return fromSorted(sorted, null, balance);
+    }
 
-            } // hasNext()
+    /**
+     * fromSorted for a tree with its own ordering
+     *
+     * @param <T> the element type
+     * @param sorted the elements in strictly ascending order by comparator
+     * @param comparator the ordering; null for natural ordering
+     * @param balance the mode the new tree uses for later inserts/removes
+     * @return a new tree holding the elements
+     * @throws IllegalArgumentException if sorted is not strictly ascending
+     */
+    public static <T> BinarySearchTree<T> fromSorted(Collection<? extends T> sorted, Comparator<? super T> comparator, Balance balance) {
+        Object[] elements = sorted.toArray();
+        BinarySearchTree<T> rv = new BinarySearchTree<>(comparator, balance);
+        for (int i = 1; i < elements.length; ++i) {
+            if (rv.compare(elements[i - 1], elements[i]) >= 0) {
+                throw new IllegalArgumentException("fromSorted: element " + i + " is not greater than the one before it");
+            }
+        }
+        rv.root = rv.buildBalanced(elements, 0, elements.length, null);
+        return rv;
+    }
 
-            @Override
-            public T next() {
+    /**
+     * fromSorted without the order check, for callers that already know
+     * (e.g. a tree file, which is written in order)
+     */
+    static <T> BinarySearchTree<T> fromSortedArray(Object[] elements, Comparator<? super T> comparator, Balance balance) {
+        BinarySearchTree<T> rv = new BinarySearchTree<>(comparator, balance);
+        rv.root = rv.buildBalanced(elements, 0, elements.length, null);
+        return rv;
+    }
 
-                if (!hasNext()) {
-                    throw new NoSuchElementException();
-                }
-                while (curr != null) {
-                    s.push(curr);
-                    curr = curr.leftChild;
-                }
-                curr = s.pop();
-                Node<T> node = curr;
-                curr = curr.rightChild;
+    /**
+     * fromSorted for an unbalanced (Balance.NONE) tree
+     *
+     * @param <T> the element type
+     * @param sorted the elements in strictly ascending order
+     * @return a new tree holding the elements
+     * @throws IllegalArgumentException if sorted is not strictly ascending
+     */
+    public static <T extends Comparable<T>> BinarySearchTree<T> fromSorted(Collection<? extends T> sorted) {
+        return fromSorted(sorted, Balance.NONE);
+    }
 
-                return node.data;
+    /**
+     * Deep copy a tree (using deepCopyNode)
+     *
+     * @param copyMe The tree to clone
+     */
+    public void clone(BinarySearchTree copyMe) {
+        clone(copyMe, BinarySearchTree::defaultCopy);
+    }
 
-            } // next()
+    /**
+     * Deep copy a tree (using deepCopyNode) with a caller supplied element
+     * copier
+     *
+     * @param copyMe The tree to clone
+     * @param copier makes the copy of each element
+     */
+    public void clone(BinarySearchTree<T> copyMe, UnaryOperator<T> copier) {
+        balance = copyMe.balance;
+        comparator = copyMe.comparator;
+        root = deepCopyNode(copyMe.root, copier);
+        ++modCount;
+        rehash();
+        journalContents();
+    }
 
-            // iterator remove not supported
-            @Override
-            public void remove() {
-                throw new UnsupportedOperationException();
-            } // remove()
-        }; // anon inner class iterator
-        return iterRv;
+    /**
+     * Iterator--this iterator returns the node content IN ORDER. It walks
+     * the parent links, so it needs no stack and next() is O(1) amortized.
+     * remove() unlinks the element just returned without a second descent.
+     * Any change made other than through the iterator makes it throw
+     * ConcurrentModificationException.
+     *
+     * @return an iterator that produces nodes in order.
+     */
+    public Iterator<T> iterator() {
+        return new RangeIterator(leftmost(root), null, true);
     }
 
     // note: We cannot be Comparable since trees are not fully ordered.
@@ -134,173 +414,1009 @@ public class BinarySearchTree<T extends Comparable<T>> extends BinaryTree<T> imp
      * @return true iff the two trees contain exactly the same items (the
      * structure is not taken into account)
      */
-    private int counter;
-
     public boolean equals(BinarySearchTree other) {
-        if (verbose) {
-            System.err.println("Comparing:\tTree1:\n" + toString());
-            System.err.println("With:\tTree2:\n" + other);
-        }
         // if they are the same object, return true. Nothing to do
         if (this == other) {
             return true;
         }
-
-        if (numberOfNodes(root) != other.numberOfNodes(root)) {//if the number of nodes differ, the trees cant be the same 
+        if (null == other) {
             return false;
         }
-
+        // Step 1: Threshold questions - both the count and the hash are kept,
+        // so these cost nothing
+        if (numberOfNodes() != other.numberOfNodes() || hashCode() != other.hashCode()) {
+            return false;
+        }
+        // Step 2: if the trees are ordered differently, look each of my
+        // elements up in other (the counts match, so that is enough)
+        if (!Objects.equals(comparator, other.comparator)) {
+            for (T element : this) {
+                if (null == other.findNode(element)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        // otherwise walk both trees in order side by side. Equal sets produce
+        // equal sequences, so the first mismatch settles it
         Iterator<T> myIter = iterator();
-        Iterator<T> otherIter = other.iterator();
-
+        Iterator<?> otherIter = other.iterator();
         while (myIter.hasNext() && otherIter.hasNext()) {
-            T myElement = myIter.next();
-            T otherElement = otherIter.next();
-
-            if (!other.search(myElement) && !search(otherElement)) {
+            if (!myIter.next().equals(otherIter.next())) {
                 return false;
             }
         }
-        // Step 1: Threshold question - same number of nodes
-        // if these are computed, maybe remove this
-        // as it's no more efficient than a full traversal
-        // Step 2: now create iterators through each tree and compare. If we find a 
-        // difference, the two trees are not the same 
         // Step 3: Finally, if the two trees survive that guantlet, they are the same.
-        return true;
+        return !myIter.hasNext() && !otherIter.hasNext();
+    }
+
+    // see note before equals()
+    @Override
+    public boolean equals(Object other) {
+        return (other instanceof BinarySearchTree) && equals((BinarySearchTree) other);
     }
 
     // see note before equals()
+    // Each node keeps the sum of the hashCode()s of its subtree, maintained
+    // along with the size, so this is O(1). As with a HashSet, an element
+    // whose hashCode changes while it is in the tree breaks this.
+    @Override
     public int hashCode() {
-        int rv = 0;
-        Iterator<T> meIter = iterator();
-        while (meIter.hasNext()) {
-            T meValue = meIter.next();
-            // no exception on overflow, so this is fine
-            rv += meValue.hashCode();
-            // We can add a positional element (order) but not a structural one
+        return (null == root) ? 0 : root.hash;
+    }
+
+    /**
+     * Recompute every node's subtree hash, bottom up, after a copy whose
+     * copier may have produced elements with different hash codes
+     */
+    void rehash() {
+        Node<T> n = root;
+        if (null == n) {
+            return;
+        }
+        // a postfix walk along parent links: children before parents
+        while (null != n.leftChild || null != n.rightChild) {
+            n = (null != n.leftChild) ? n.leftChild : n.rightChild;
+        }
+        while (null != n) {
+            n.hash = n.data.hashCode() + nodeHash(n.leftChild) + nodeHash(n.rightChild);
+            Node<T> up = n.parent;
+            if (null != up && n == up.leftChild && null != up.rightChild) {
+                n = up.rightChild;
+                while (null != n.leftChild || null != n.rightChild) {
+                    n = (null != n.leftChild) ? n.leftChild : n.rightChild;
+                }
+            } else {
+                n = up;
+            }
         }
-        return rv;
     }
 
-    public boolean insert(T addMe) {
+    /**
+     * Record every later successful change in a journal (null to stop). See
+     * TreeJournal for recovery.
+     *
+     * @param journal the journal to append to, or null
+     */
+    public void setJournal(TreeJournal<T> journal) {
+        this.journal = journal;
+    }
 
-        Node<T> newNode = new Node<T>();
-        newNode.data = addMe;
+    private void journal(byte op, T element) {
+        if (null != journal) {
+            journal.append(op, element);
+        }
+    }
 
-        Node<T> traverseNode = root;
-        Node<T> trail = traverseNode;
+    // for changes that are not a list of inserts and removes: start over
+    private void journalContents() {
+        if (null != journal) {
+            journal.append(TreeJournal.CLEAR, null);
+            forEach(element -> journal.append(TreeJournal.INSERT, element));
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        ++modCount;
+        journal(TreeJournal.CLEAR, null);
+    }
+
+    /**
+     * Insert an element. In AVL mode the tree is rebalanced on the way back
+     * up to the root.
+     *
+     * @param addMe the element to add
+     * @return true iff the element was not already in the tree
+     */
+    public boolean insert(T addMe) {
+        if (null == metrics) {
+            return insertPath(addMe) >= 0;
+        }
+        long start = System.nanoTime();
+        int path = insertPath(addMe);
+        // one comparison per node on the path
+        report(TreeMetrics.Operation.INSERT, path, (path >= 0) ? path : ~path, start);
+        return path >= 0;
+    }
+
+    /**
+     * The insert itself. Returns the number of nodes compared against, or
+     * its complement (a negative number) if addMe was already there.
+     */
+    private int insertPath(T addMe) {
 
-     
         if (root == null) {
-            root = newNode;
-        
-            return true;
+            attach(null, 0, addMe);
+            return 0;
         }
 
+        Node<T> traverseNode = root;
+        Node<T> trail = traverseNode;
+        int comparison = 0;
+        int path = 0;
+
         while (traverseNode != null) {
             trail = traverseNode;
-            if (traverseNode.data.compareTo(addMe) == 0) {
-                return false;
-            }
-            if (traverseNode.data.compareTo(addMe) < 0) {
-                traverseNode = traverseNode.rightChild;
-            } else {
-                traverseNode = traverseNode.leftChild;
+            comparison = compare(addMe, traverseNode.data);
+            ++path;
+            if (comparison == 0) {
+                splayIfSplaying(traverseNode);
+                return ~path;
             }
-
+            traverseNode = (comparison < 0) ? traverseNode.leftChild : traverseNode.rightChild;
         } // while
 
-        if (trail.data.compareTo(newNode.data) < 0) {
+        // only allocate once we know this is not a duplicate
+        attach(trail, comparison, addMe);
 
-            trail.rightChild = newNode;
-        } else {
+        return path;
+    }
 
+    /**
+     * Hang a new node for addMe below trail, on the side the last comparison
+     * chose (as the root if trail is null), then fix the path up and journal
+     * the insert
+     *
+     * @return the new node
+     */
+    Node<T> attach(Node<T> trail, int comparison, T addMe) {
+        Node<T> newNode = newNode(trail);
+        newNode.data = addMe;
+        newNode.hash = addMe.hashCode();
+        if (null == trail) {
+            root = newNode;
+        } else if (comparison < 0) {
             trail.leftChild = newNode;
+        } else {
+            trail.rightChild = newNode;
         }
-
-   
-        return true;
+        ++modCount;
+        if (balance == Balance.SPLAY) {
+            // the rotations on the way up fix every node on the path
+            splay(newNode);
+        } else {
+            retrace(trail);
+        }
+        journal(TreeJournal.INSERT, addMe);
+        return newNode;
     }
 
+    /**
+     * Remove an element. A node with two children takes the content of its
+     * successor, and the successor node (which has at most one child) is
+     * unlinked instead.
+     *
+     * @param removeMe the element to remove
+     * @return true iff the element was in the tree
+     */
     public boolean remove(T removeMe) {
+        if (null == metrics) {
+            return removePath(removeMe) >= 0;
+        }
+        long start = System.nanoTime();
+        int path = removePath(removeMe);
+        report(TreeMetrics.Operation.REMOVE, path, (path >= 0) ? path : ~path, start);
+        return path >= 0;
+    }
 
-        Node<T> traverseNode = root;
-        Node<T> trail = traverseNode;
-
-        if (!search(removeMe)) {//see if the removal node is even there 
-            return false;
-        } else {
-
-            while (traverseNode.data != removeMe) {
-
-                if (traverseNode.data.compareTo(removeMe) < 0) {
-                    trail = traverseNode;
-                    traverseNode = traverseNode.rightChild;
-                } else {
-                    trail = traverseNode;
-                    traverseNode = traverseNode.leftChild;
-                }
+    /**
+     * The remove itself. Returns the number of nodes compared against, or
+     * its complement (a negative number) if removeMe was not there.
+     */
+    private int removePath(T removeMe) {
 
+        Node<T> traverseNode = root;
+        Node<T> last = null;
+        int path = 0;
+        while (traverseNode != null) {
+            last = traverseNode;
+            int comparison = compare(removeMe, traverseNode.data);
+            ++path;
+            if (comparison == 0) {
+                break;
             }
+            traverseNode = (comparison < 0) ? traverseNode.leftChild : traverseNode.rightChild;
+        }
+        if (traverseNode == null) {//see if the removal node is even there 
+            splayIfSplaying(last);
+            return ~path;
+        }
+        removeNode(traverseNode);
 
-            if (traverseNode.data.equals(removeMe) && traverseNode.leftChild == null && traverseNode.rightChild == null) {//no childern
-                
-                System.out.println("removing: " + removeMe);
-                System.out.println("in no child");
-                if(trail.rightChild != null){
-                    trail.leftChild = null;
-                } else {
-                    trail.rightChild = null;
-                }
-                
-                
-                traverseNode.data = null;
+        return path;
+    }
 
-                return true;
-            }// no child if
+    /**
+     * Make the node for a new element. A subclass whose nodes carry more
+     * than the element (BinarySearchMap) makes its own kind here.
+     *
+     * @param theParent the parent of the new node
+     * @return the node
+     */
+    Node<T> newNode(Node<T> theParent) {
+        return new Node<T>(theParent);
+    }
 
-            if (traverseNode.data.equals(removeMe) && traverseNode.leftChild != null && traverseNode.rightChild != null) {//two childern
+    /**
+     * Move the content of one node into another, when a removal replaces an
+     * element by its successor. A subclass with more in a node moves that
+     * too.
+     */
+    void takeContent(Node<T> to, Node<T> from) {
+        to.data = from.data;
+    }
 
-                System.out.println("removing: " + removeMe);
-                System.out.println("in two child");
-               
+    /**
+     * Remove the element held by a node, and journal it
+     *
+     * @param traverseNode a node in this tree
+     * @return the node that now holds the next larger element (null if
+     * none): the node itself if it took its successor's content
+     */
+    Node<T> removeNode(Node<T> traverseNode) {
+        T removed = traverseNode.data;
+        Node<T> next;
+        if (traverseNode.leftChild != null && traverseNode.rightChild != null) {//two childern
+            Node<T> successor = findSuccessor(traverseNode);
+            takeContent(traverseNode, successor);
+            next = traverseNode;
+            traverseNode = successor;
+        } else {
+            next = successor(traverseNode);
+        }
 
-                Node<T> successor = findSuccessor(traverseNode);
-                T tempData = successor.data;
+        // traverseNode now has at most one child; splice it out
+        Node<T> child = (traverseNode.leftChild != null) ? traverseNode.leftChild : traverseNode.rightChild;
+        Node<T> trail = traverseNode.parent;
+        if (child != null) {
+            child.parent = trail;
+        }
+        replaceChild(trail, traverseNode, child);
+        traverseNode.data = null;
+        traverseNode.parent = null;
+        traverseNode.leftChild = null;
+        traverseNode.rightChild = null;
+        ++modCount;
+        if (balance == Balance.SPLAY && null != trail) {
+            // the spliced node's parent goes to the root
+            updateNode(trail);
+            splay(trail);
+        } else {
+            retrace(trail);
+        }
+        journal(TreeJournal.REMOVE, removed);
+        return next;
+    }
 
-                remove(tempData);
-                traverseNode.data = tempData;
-              
-                return true;
+    /**
+     * Hand one operation to the metrics sink, with the tree's shape after it
+     *
+     * @param path the path length, complemented for a miss
+     */
+    private void report(TreeMetrics.Operation operation, int path, int comparisons, long start) {
+        long nanos = System.nanoTime() - start;
+        metrics.record(operation, path >= 0, comparisons, (path >= 0) ? path : ~path, nanos,
+                height(), numberOfNodes());
+    }
 
+    /**
+     * Insert every element of a collection. When the collection is large
+     * compared to the tree, the tree is rebuilt instead: the elements are
+     * sorted (skipped if they already are, e.g. a SortedSet in natural
+     * order), merged with the tree's in-order content, and a perfectly
+     * balanced tree is built from the result in linear time. Otherwise each
+     * element is inserted normally.
+     *
+     * @param addMe the elements to add; duplicates are ignored
+     * @return true iff the tree changed
+     */
+    public boolean insertAll(Collection<? extends T> addMe) {
+        int before = numberOfNodes();
+        int incoming = addMe.size();
+        if (incoming == 0) {
+            return false;
+        }
+        // a rebuild costs O(n + m); m descents cost O(m log n)
+        int log2 = 32 - Integer.numberOfLeadingZeros(before + 1);
+        if ((long) incoming * log2 < before) {
+            for (T element : addMe) {
+                insert(element);
+            }
+            return numberOfNodes() != before;
+        }
+        Object[] elements = addMe.toArray();
+        boolean presorted = (addMe instanceof SortedSet
+                && Objects.equals(((SortedSet<?>) addMe).comparator(), comparator));
+        for (int i = 1; !presorted && i < elements.length; ++i) {
+            if (compare(elements[i - 1], elements[i]) > 0) {
+                Arrays.sort(elements, this::compare);
+                break;
+            }
+        }
+        // merge with the current content, dropping duplicates
+        Object[] merged = new Object[before + elements.length];
+        int count = 0;
+        int next = 0;
+        Iterator<T> mine = iterator();
+        T current = mine.hasNext() ? mine.next() : null;
+        while (current != null || next < elements.length) {
+            Object candidate;
+            if (next == elements.length || (current != null && compare(current, elements[next]) <= 0)) {
+                candidate = current;
+                current = mine.hasNext() ? mine.next() : null;
             } else {
-                // single child case
-                System.out.println("removing: " + removeMe);
-                System.out.println("in one child");
-                
-                Node<T> yemp;
-                if (traverseNode.leftChild == null) {
-                    yemp = traverseNode.rightChild;
-                } else {
-                    yemp = traverseNode.leftChild;
-                }
-                if (trail.leftChild == traverseNode) {
-                    trail.leftChild = yemp;
-                } else {
-                    trail.rightChild = yemp;
-                }
-
+                candidate = elements[next++];
+            }
+            if (count == 0 || compare(merged[count - 1], candidate) != 0) {
+                merged[count++] = candidate;
+            }
+        }
+        if (count == before) {
+            return false;
+        }
+        root = buildBalanced(merged, 0, count, null);
+        ++modCount;
+        if (null != journal) {
+            // replaying an insert of something already there is harmless
+            for (T element : addMe) {
+                journal.append(TreeJournal.INSERT, element);
             }
-
         }
         return true;
     }
 
-   
+    /**
+     * Build a balanced subtree from sorted[lo, hi) by taking the middle as the
+     * root. The recursion is only log2(n) deep.
+     */
+    @SuppressWarnings("unchecked")
+    private Node<T> buildBalanced(Object[] sorted, int lo, int hi, Node<T> theParent) {
+        if (lo >= hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        Node<T> node = new Node<T>(theParent);
+        node.data = (T) sorted[mid];
+        node.leftChild = buildBalanced(sorted, lo, mid, node);
+        node.rightChild = buildBalanced(sorted, mid + 1, hi, node);
+        updateNode(node);
+        return node;
+    }
 
-    private Node<T> findSuccessor(Node<T> node) {
-        Node<T> temp = node;
+    /**
+     * Walk from a node up to the root, fixing the cached heights, sizes and
+     * hashes and (in AVL mode) rotating any node that has become unbalanced.
+     *
+     * @param node the lowest node whose subtree changed
+     */
+    void retrace(Node<T> node) {
+        while (node != null) {
+            updateNode(node);
+            if (balance == Balance.AVL) {
+                node = rebalance(node);
+            }
+            node = node.parent;
+        }
+    }
+
+    /**
+     * Restore the AVL property at a node whose children differ in height by
+     * at most two.
+     *
+     * @param node the node to check
+     * @return the root of the (possibly rotated) subtree
+     */
+    private Node<T> rebalance(Node<T> node) {
+        int balanceFactor = nodeHeight(node.leftChild) - nodeHeight(node.rightChild);
+        if (balanceFactor > 1) {
+            if (nodeHeight(node.leftChild.leftChild) < nodeHeight(node.leftChild.rightChild)) {
+                rotateLeft(node.leftChild);
+            }
+            return rotateRight(node);
+        }
+        if (balanceFactor < -1) {
+            if (nodeHeight(node.rightChild.rightChild) < nodeHeight(node.rightChild.leftChild)) {
+                rotateRight(node.rightChild);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    /**
+     * Rotate left around a node (its right child takes its place)
+     *
+     * @param node the node to rotate down
+     * @return the node that replaced it
+     */
+    Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.rightChild;
+        node.rightChild = pivot.leftChild;
+        if (pivot.leftChild != null) {
+            pivot.leftChild.parent = node;
+        }
+        pivot.parent = node.parent;
+        replaceChild(node.parent, node, pivot);
+        pivot.leftChild = node;
+        node.parent = pivot;
+        updateNode(node);
+        updateNode(pivot);
+        return pivot;
+    }
+
+    /**
+     * Rotate right around a node (its left child takes its place)
+     *
+     * @param node the node to rotate down
+     * @return the node that replaced it
+     */
+    Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.leftChild;
+        node.leftChild = pivot.rightChild;
+        if (pivot.rightChild != null) {
+            pivot.rightChild.parent = node;
+        }
+        pivot.parent = node.parent;
+        replaceChild(node.parent, node, pivot);
+        pivot.rightChild = node;
+        node.parent = pivot;
+        updateNode(node);
+        updateNode(pivot);
+        return pivot;
+    }
+
+    void splayIfSplaying(Node<T> node) {
+        if (balance == Balance.SPLAY && null != node) {
+            splay(node);
+        }
+    }
+
+    /**
+     * Move a node to the root by bottom-up splaying: while it has a
+     * grandparent, rotate twice, either the parent first (zig-zig, when the
+     * node and its parent are children on the same side) or the node twice
+     * (zig-zag); then, if it is a child of the root, rotate once (zig).
+     * Zig-zig rather than two single rotations is what roughly halves the
+     * depth of every node on the path, and gives the amortized bound.
+     *
+     * Every ancestor takes part in exactly one step, and each rotation fixes
+     * the cached fields of the nodes it moves, lower one first. So as long
+     * as node itself is up to date, the whole path is when this returns.
+     *
+     * @param node the node to bring to the root
+     */
+    void splay(Node<T> node) {
+        while (null != node.parent) {
+            Node<T> parent = node.parent;
+            Node<T> grandparent = parent.parent;
+            if (null == grandparent) {
+                rotateUp(node);
+            } else if ((node == parent.leftChild) == (parent == grandparent.leftChild)) {
+                rotateUp(parent);
+                rotateUp(node);
+            } else {
+                rotateUp(node);
+                rotateUp(node);
+            }
+        }
+    }
+
+    // rotate a node above its parent
+    private void rotateUp(Node<T> node) {
+        if (node == node.parent.leftChild) {
+            rotateRight(node.parent);
+        } else {
+            rotateLeft(node.parent);
+        }
+    }
+
+    /**
+     * Point the parent (or root) link that referred to oldChild at newChild.
+     * The parent pointer of newChild is left to the caller.
+     */
+    private void replaceChild(Node<T> parent, Node<T> oldChild, Node<T> newChild) {
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.leftChild == oldChild) {
+            parent.leftChild = newChild;
+        } else {
+            parent.rightChild = newChild;
+        }
+    }
+
+    private void updateNode(Node<T> node) {
+        node.height = 1 + Math.max(nodeHeight(node.leftChild), nodeHeight(node.rightChild));
+        node.size = 1 + numberOfNodes(node.leftChild) + numberOfNodes(node.rightChild);
+        // no exception on overflow, so this is fine
+        node.hash = node.data.hashCode() + nodeHash(node.leftChild) + nodeHash(node.rightChild);
+    }
+
+    private static int nodeHash(BinaryTree.Node node) {
+        return (node == null) ? 0 : node.hash;
+    }
+
+    private static int nodeHeight(BinaryTree.Node node) {
+        return (node == null) ? -1 : node.height;
+    }
+
+    /**
+     * Rank of a value: the number of elements in the tree strictly less than
+     * it. The value itself need not be in the tree. O(height).
+     *
+     * @param value the value to rank
+     * @return the count of smaller elements
+     */
+    public int rank(T value) {
+        return countBelow(value, false);
+    }
+
+    /**
+     * Select the element of a given rank (the k'th smallest, counting from
+     * zero). O(height).
+     *
+     * @param k the rank, 0 &lt;= k &lt; numberOfNodes()
+     * @return the element with exactly k smaller elements in the tree
+     * @throws IndexOutOfBoundsException if k is out of range
+     */
+    public T select(int k) {
+        if (k < 0 || k >= numberOfNodes()) {
+            throw new IndexOutOfBoundsException("select(" + k + ") on a tree of " + numberOfNodes());
+        }
+        return selectNode(k).data;
+    }
+
+    /**
+     * @return the node holding the element of rank k, which must be in range
+     */
+    Node<T> selectNode(int k) {
+        Node<T> current = root;
+        while (true) {
+            int leftSize = numberOfNodes(current.leftChild);
+            if (k < leftSize) {
+                current = current.leftChild;
+            } else if (k > leftSize) {
+                k -= leftSize + 1;
+                current = current.rightChild;
+            } else {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Count the elements e with lo &lt;= e &lt;= hi. O(height).
+     *
+     * @param lo lower bound (inclusive)
+     * @param hi upper bound (inclusive)
+     * @return the number of elements in [lo, hi], 0 if lo &gt; hi
+     */
+    public int countInRange(T lo, T hi) {
+        if (compare(lo, hi) > 0) {
+            return 0;
+        }
+        return countBelow(hi, true) - countBelow(lo, false);
+    }
+
+    /**
+     * Count the elements less than (or, if inclusive, equal to) a value by
+     * summing left subtree sizes on the way down.
+     */
+    private int countBelow(T value, boolean inclusive) {
+        int count = 0;
+        Node<T> current = root;
+        while (current != null) {
+            int comparison = compare(value, current.data);
+            if (comparison < 0) {
+                current = current.leftChild;
+            } else if (comparison > 0) {
+                count += numberOfNodes(current.leftChild) + 1;
+                current = current.rightChild;
+            } else {
+                return count + numberOfNodes(current.leftChild) + (inclusive ? 1 : 0);
+            }
+        }
+        return count;
+    }
+
+    // Set algebra. Everything below is built on two primitives, join and
+    // split, on detached subtrees (the root link and the parent of the
+    // subtree root are fixed by whoever gets the result). With AVL-shaped
+    // inputs a union/intersection/difference of trees of sizes n >= m costs
+    // O(m log(n/m + 1)), and the two halves of each step touch disjoint
+    // subtrees, so large ones are forked onto the common fork-join pool.
+
+    // below this combined size a set operation runs on one thread
+    static final int PARALLEL_SET_THRESHOLD = 1 << 13;
+
+    private enum SetOp {
+        UNION, INTERSECTION, DIFFERENCE
+    }
+
+    /**
+     * The three pieces of a split: the subtree below the key, the node
+     * holding the key (or null) and the subtree above it
+     */
+    private static final class Split<T> {
+
+        final BinaryTree<T>.Node<T> left;
+        final BinaryTree<T>.Node<T> found;
+        final BinaryTree<T>.Node<T> right;
+
+        Split(BinaryTree<T>.Node<T> left, BinaryTree<T>.Node<T> found, BinaryTree<T>.Node<T> right) {
+            this.left = left;
+            this.found = found;
+            this.right = right;
+        }
+    }
+
+    /**
+     * Add every element of other to this tree (other is only read)
+     *
+     * @param other the elements to add
+     * @return true iff this tree changed
+     */
+    public boolean union(BinarySearchTree<T> other) {
+        if (this == other) {
+            return false;
+        }
+        return combineWith(SetOp.UNION, other);
+    }
+
+    /**
+     * Keep only the elements that are also in other (other is only read)
+     *
+     * @param other the elements to keep
+     * @return true iff this tree changed
+     */
+    public boolean intersection(BinarySearchTree<T> other) {
+        if (this == other) {
+            return false;
+        }
+        return combineWith(SetOp.INTERSECTION, other);
+    }
+
+    /**
+     * Remove every element that is in other (other is only read)
+     *
+     * @param other the elements to remove
+     * @return true iff this tree changed
+     */
+    public boolean difference(BinarySearchTree<T> other) {
+        if (this == other) {
+            boolean rv = !isEmpty();
+            clear();
+            return rv;
+        }
+        return combineWith(SetOp.DIFFERENCE, other);
+    }
+
+    /**
+     * Split this tree at a key in O(log n). This tree keeps the elements
+     * below key; the elements at or above key are moved to the tree returned
+     * (which has the same balancing mode).
+     *
+     * @param key where to split; it need not be in the tree
+     * @return a new tree holding the elements at or above key
+     */
+    public BinarySearchTree<T> split(T key) {
+        Split<T> pieces = split(wellShaped(root), key);
+        root = detach(pieces.left);
+        ++modCount;
+        BinarySearchTree<T> rv = new BinarySearchTree<>(comparator, balance);
+        rv.root = (null == pieces.found) ? detach(pieces.right) : detach(join(null, pieces.found, pieces.right));
+        // what left this tree is exactly what the new one holds
+        if (null != journal) {
+            rv.forEach(element -> journal.append(TreeJournal.REMOVE, element));
+        }
+        return rv;
+    }
+
+    private boolean combineWith(SetOp op, BinarySearchTree<T> other) {
+        int before = numberOfNodes();
+        Node<T> mine = wellShaped(root);
+        Node<T> theirs = other.root;
+        if (null != theirs && !Objects.equals(comparator, other.comparator)) {
+            // other is ordered differently, so its shape is no use for
+            // splitting this tree: index its elements in this tree's order
+            Object[] elements = inorder(theirs);
+            Arrays.sort(elements, this::compare);
+            int count = 0;
+            for (Object element : elements) {
+                if (count == 0 || compare(elements[count - 1], element) != 0) {
+                    elements[count++] = element;
+                }
+            }
+            theirs = buildBalanced(elements, 0, count, null);
+        } else if (null != theirs && isDegenerate(theirs)) {
+            // the recursion follows other's shape, so give it a balanced one
+            // (a throwaway index over the same elements)
+            theirs = buildBalanced(inorder(theirs), 0, theirs.size, null);
+        }
+        // the elements added (union) or removed (the others), for the journal
+        Collection<T> changed = null;
+        if (numberOfNodes(mine) + numberOfNodes(theirs) >= PARALLEL_SET_THRESHOLD) {
+            if (null != journal) {
+                changed = new ConcurrentLinkedQueue<>();
+            }
+            root = detach(new SetOpTask(op, mine, theirs, changed).invoke());
+        } else {
+            if (null != journal) {
+                changed = new ArrayList<>();
+            }
+            root = detach(combine(op, mine, theirs, false, changed));
+        }
+        ++modCount;
+        if (null != journal) {
+            byte record = (op == SetOp.UNION) ? TreeJournal.INSERT : TreeJournal.REMOVE;
+            for (T element : changed) {
+                journal.append(record, element);
+            }
+        }
+        return numberOfNodes() != before;
+    }
+
+    /**
+     * One step of union/intersection/difference: split mine at the root
+     * element of theirs, combine the halves, and join the results. The
+     * elements the step adds or removes go into changed, unless it is null
+     * (it is thread safe if parallel).
+     */
+    private Node<T> combine(SetOp op, Node<T> mine, Node<T> theirs, boolean parallel, Collection<T> changed) {
+        if (null == theirs) {
+            if (op == SetOp.INTERSECTION && null != changed) {
+                collect(mine, changed);
+            }
+            return (op == SetOp.INTERSECTION) ? null : mine;
+        }
+        if (null == mine) {
+            if (op == SetOp.UNION && null != changed) {
+                collect(theirs, changed);
+            }
+            // a union takes a copy of the rest of theirs; the elements are shared
+            return (op == SetOp.UNION) ? copySubtree(theirs, UnaryOperator.identity()) : null;
+        }
+        boolean fork = parallel && mine.size + theirs.size >= PARALLEL_SET_THRESHOLD;
+        Split<T> pieces = split(mine, theirs.data);
+        Node<T> left;
+        Node<T> right;
+        if (fork) {
+            SetOpTask leftTask = new SetOpTask(op, pieces.left, theirs.leftChild, changed);
+            leftTask.fork();
+            right = combine(op, pieces.right, theirs.rightChild, true, changed);
+            left = leftTask.join();
+        } else {
+            left = combine(op, pieces.left, theirs.leftChild, false, changed);
+            right = combine(op, pieces.right, theirs.rightChild, false, changed);
+        }
+        switch (op) {
+            case UNION:
+                Node<T> middle = pieces.found;
+                if (null == middle) {
+                    middle = new Node<T>(null);
+                    middle.data = theirs.data;
+                    if (null != changed) {
+                        changed.add(theirs.data);
+                    }
+                }
+                return join(left, middle, right);
+            case INTERSECTION:
+                return (null == pieces.found) ? joinTwo(left, right) : join(left, pieces.found, right);
+            default:
+                if (null != pieces.found && null != changed) {
+                    changed.add(pieces.found.data);
+                }
+                return joinTwo(left, right);
+        }
+    }
+
+    // every element of a subtree; as deep as combine() itself recurses
+    private void collect(Node<T> node, Collection<T> into) {
+        if (null != node) {
+            collect(node.leftChild, into);
+            into.add(node.data);
+            collect(node.rightChild, into);
+        }
+    }
+
+    private class SetOpTask extends RecursiveTask<Node<T>> {
+
+        private final SetOp op;
+        private final Node<T> mine;
+        private final Node<T> theirs;
+        private final Collection<T> changed;
+
+        SetOpTask(SetOp op, Node<T> mine, Node<T> theirs, Collection<T> changed) {
+            this.op = op;
+            this.mine = mine;
+            this.theirs = theirs;
+            this.changed = changed;
+        }
+
+        @Override
+        protected Node<T> compute() {
+            return combine(op, mine, theirs, true, changed);
+        }
+    }
+
+    /**
+     * Split a detached subtree into the part below key, the node equal to
+     * key (if any) and the part above key. Recursion is as deep as the
+     * subtree is tall.
+     */
+    private Split<T> split(Node<T> node, T key) {
+        if (null == node) {
+            return new Split<>(null, null, null);
+        }
+        Node<T> left = node.leftChild;
+        Node<T> right = node.rightChild;
+        int direction = compare(key, node.data);
+        if (direction == 0) {
+            node.leftChild = null;
+            node.rightChild = null;
+            return new Split<>(detach(left), node, detach(right));
+        }
+        if (direction < 0) {
+            Split<T> below = split(left, key);
+            return new Split<>(below.left, below.found, join(below.right, node, right));
+        }
+        Split<T> above = split(right, key);
+        return new Split<>(join(left, node, above.left), above.found, above.right);
+    }
+
+    /**
+     * Join two detached subtrees and a node that sorts between them into one
+     * AVL-shaped subtree, in time proportional to their difference in height
+     */
+    private Node<T> join(Node<T> left, Node<T> middle, Node<T> right) {
+        if (nodeHeight(left) > nodeHeight(right) + 1) {
+            return joinRight(left, middle, right);
+        }
+        if (nodeHeight(right) > nodeHeight(left) + 1) {
+            return joinLeft(left, middle, right);
+        }
+        return link(left, middle, right);
+    }
+
+    // left is the taller: walk down its right spine to a subtree as short as right
+    private Node<T> joinRight(Node<T> left, Node<T> middle, Node<T> right) {
+        Node<T> spine = left.rightChild;
+        if (nodeHeight(spine) <= nodeHeight(right) + 1) {
+            Node<T> joined = link(spine, middle, right);
+            if (nodeHeight(joined) <= nodeHeight(left.leftChild) + 1) {
+                return link(left.leftChild, left, joined);
+            }
+            return detachedRotateLeft(link(left.leftChild, left, detachedRotateRight(joined)));
+        }
+        Node<T> joined = joinRight(spine, middle, right);
+        Node<T> rv = link(left.leftChild, left, joined);
+        return (nodeHeight(joined) <= nodeHeight(left.leftChild) + 1) ? rv : detachedRotateLeft(rv);
+    }
+
+    // mirror image of joinRight
+    private Node<T> joinLeft(Node<T> left, Node<T> middle, Node<T> right) {
+        Node<T> spine = right.leftChild;
+        if (nodeHeight(spine) <= nodeHeight(left) + 1) {
+            Node<T> joined = link(left, middle, spine);
+            if (nodeHeight(joined) <= nodeHeight(right.rightChild) + 1) {
+                return link(joined, right, right.rightChild);
+            }
+            return detachedRotateRight(link(detachedRotateLeft(joined), right, right.rightChild));
+        }
+        Node<T> joined = joinLeft(left, middle, spine);
+        Node<T> rv = link(joined, right, right.rightChild);
+        return (nodeHeight(joined) <= nodeHeight(right.rightChild) + 1) ? rv : detachedRotateRight(rv);
+    }
+
+    /**
+     * Join two detached subtrees where everything in left sorts before
+     * everything in right
+     */
+    private Node<T> joinTwo(Node<T> left, Node<T> right) {
+        if (null == left) {
+            return right;
+        }
+        Split<T> pieces = splitLast(left);
+        return join(pieces.left, pieces.found, right);
+    }
+
+    // remove the largest node from a detached subtree: (the rest, that node, null)
+    private Split<T> splitLast(Node<T> node) {
+        if (null == node.rightChild) {
+            Node<T> rest = detach(node.leftChild);
+            node.leftChild = null;
+            return new Split<>(rest, node, null);
+        }
+        Split<T> pieces = splitLast(node.rightChild);
+        return new Split<>(join(node.leftChild, node, pieces.left), pieces.found, null);
+    }
+
+    /**
+     * Make middle the root of a detached subtree with the given children
+     */
+    private Node<T> link(Node<T> left, Node<T> middle, Node<T> right) {
+        middle.leftChild = left;
+        middle.rightChild = right;
+        middle.parent = null;
+        if (null != left) {
+            left.parent = middle;
+        }
+        if (null != right) {
+            right.parent = middle;
+        }
+        updateNode(middle);
+        return middle;
+    }
+
+    // rotateLeft/rotateRight for detached subtrees (they never touch root)
+    private Node<T> detachedRotateLeft(Node<T> node) {
+        Node<T> pivot = node.rightChild;
+        link(node.leftChild, node, pivot.leftChild);
+        return link(node, pivot, pivot.rightChild);
+    }
+
+    private Node<T> detachedRotateRight(Node<T> node) {
+        Node<T> pivot = node.leftChild;
+        link(pivot.rightChild, node, node.rightChild);
+        return link(pivot.leftChild, pivot, node);
+    }
+
+    private static <N extends BinaryTree.Node> N detach(N node) {
+        if (null != node) {
+            node.parent = null;
+        }
+        return node;
+    }
+
+    /**
+     * split and join recurse as deep as the tree is tall, so before a set
+     * operation a degenerate tree (e.g. NONE mode after sorted inserts) is
+     * rebuilt balanced. A random-order NONE tree passes the test as is.
+     */
+    private Node<T> wellShaped(Node<T> node) {
+        if (null != node && isDegenerate(node)) {
+            root = buildBalanced(inorder(node), 0, node.size, null);
+            ++modCount;
+            return root;
+        }
+        return node;
+    }
+
+    private static boolean isDegenerate(BinaryTree.Node node) {
+        int log2 = 32 - Integer.numberOfLeadingZeros(node.size + 1);
+        return node.height > 4 * log2;
+    }
+
+    private Object[] inorder(Node<T> node) {
+        Object[] rv = new Object[node.size];
+        int[] count = {0};
+        dfs(DfsType.INFIX, node, element -> rv[count[0]++] = element);
+        return rv;
+    }
+
+    private Node<T> findSuccessor(Node<T> node) {
+        Node<T> temp = node;
 
         temp = temp.rightChild;
 
@@ -315,10 +1431,754 @@ public class BinarySearchTree<T extends Comparable<T>> extends BinaryTree<T> imp
     }
 
     public boolean search(T findMe) {
+        if (null == metrics) {
+            return searchPath(findMe) >= 0;
+        }
+        long start = System.nanoTime();
+        int path = searchPath(findMe);
+        // one comparison per node on the path
+        report(TreeMetrics.Operation.SEARCH, path, (path >= 0) ? path : ~path, start);
+        return path >= 0;
+    }
+
+    // the search itself: nodes visited, complemented for a miss
+    private int searchPath(T findMe) {
+        Node<T> current = root;
+        Node<T> last = null;
+        int path = 0;
+        while (null != current) {
+            ++path;
+            last = current;
+            // one comparison decides both "found" and the direction
+            int comparison = compare(findMe, current.data);
+            if (comparison == 0) {
+                splayIfSplaying(current);
+                return path;
+            }
+            current = (comparison < 0) ? current.leftChild : current.rightChild;
+        }
+        // a miss splays the last node reached, so the work is still paid for
+        splayIfSplaying(last);
+        return ~path;
+    }
+
+    /**
+     * @return the root, typed (BinaryTree holds it as a raw Node)
+     */
+    @SuppressWarnings("unchecked")
+    Node<T> rootNode() {
+        return root;
+    }
+
+    /**
+     * A plain descent that never splays, for lookups that must not change
+     * the tree (equals() reads its argument this way)
+     *
+     * @return the node holding findMe, or null
+     */
+    Node<T> findNode(T findMe) {
         Node<T> current = root;
-        while (null != current && !current.data.equals(findMe)) {
-            current = (findMe.compareTo(current.data) < 0) ? current.leftChild : current.rightChild;
+        while (null != current) {
+            int comparison = compare(findMe, current.data);
+            if (comparison == 0) {
+                return current;
+            }
+            current = (comparison < 0) ? current.leftChild : current.rightChild;
+        }
+        return null;
+    }
+
+    /**
+     * In order successor of a node, following parent links. Amortized O(1)
+     * when used to walk a range.
+     *
+     * @param node a node in this tree
+     * @return the node holding the next larger element, or null
+     */
+    Node<T> successor(Node<T> node) {
+        if (null != node.rightChild) {
+            return leftmost(node.rightChild);
+        }
+        Node<T> up = node.parent;
+        while (null != up && node == up.rightChild) {
+            node = up;
+            up = up.parent;
+        }
+        return up;
+    }
+
+    /**
+     * In order predecessor of a node, following parent links
+     *
+     * @param node a node in this tree
+     * @return the node holding the next smaller element, or null
+     */
+    Node<T> predecessor(Node<T> node) {
+        if (null != node.leftChild) {
+            Node<T> rv = node.leftChild;
+            while (null != rv.rightChild) {
+                rv = rv.rightChild;
+            }
+            return rv;
+        }
+        Node<T> up = node.parent;
+        while (null != up && node == up.leftChild) {
+            node = up;
+            up = up.parent;
+        }
+        return up;
+    }
+
+    /**
+     * @return the node of the smallest element &gt;= key (or &gt; key if not
+     * inclusive), or null. One descent.
+     */
+    Node<T> ceilingNode(T key, boolean inclusive) {
+        Node<T> current = root;
+        Node<T> best = null;
+        while (null != current) {
+            int comparison = compare(key, current.data);
+            if (comparison < 0 || (comparison == 0 && inclusive)) {
+                best = current;
+                if (comparison == 0) {
+                    break;
+                }
+                current = current.leftChild;
+            } else {
+                current = current.rightChild;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the node of the largest element &lt; key (or &lt;= key if
+     * inclusive), or null. One descent.
+     */
+    Node<T> floorNode(T key, boolean inclusive) {
+        Node<T> current = root;
+        Node<T> best = null;
+        while (null != current) {
+            int comparison = compare(key, current.data);
+            if (comparison > 0 || (comparison == 0 && inclusive)) {
+                best = current;
+                if (comparison == 0) {
+                    break;
+                }
+                current = current.rightChild;
+            } else {
+                current = current.leftChild;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * A cursor at the smallest element (off the end if the tree is empty)
+     *
+     * @return the cursor
+     */
+    public Cursor cursor() {
+        return new Cursor(leftmost(root));
+    }
+
+    /**
+     * A cursor at the smallest element &gt;= key (off the end if there is
+     * none)
+     *
+     * @param key where to start
+     * @return the cursor
+     */
+    public Cursor cursor(T key) {
+        Cursor rv = new Cursor(null);
+        rv.seek(key);
+        return rv;
+    }
+
+    /**
+     * A finger into the tree: a remembered position (an element, or off the
+     * end) from which to step, seek and insert. A seek climbs the parent
+     * links from the current node only as far as the lowest ancestor whose
+     * subtree must hold the key, then descends from there, so for keys close
+     * together it costs O(log d) for a distance of d elements instead of the
+     * full height. (Without level links that is not a worst case bound: two
+     * neighbours on either side of a node high in the tree pay that node's
+     * height.) Stepping costs O(1) amortized.
+     *
+     * Changes made through a cursor keep it valid; any other change to the
+     * tree makes it throw ConcurrentModificationException, as a
+     * java.util iterator does. Cursor operations are journaled but not
+     * reported to the metrics sink. Stepping and seeking never change the
+     * shape of the tree. In SPLAY mode a cursor's insert() and remove() splay
+     * as the tree's own do (the new node, or the parent of the node spliced
+     * out, becomes the root); the cursor stays valid across that.
+     */
+    public class Cursor {
+
+        // null: off the end
+        private Node<T> node;
+        private int expectedModCount;
+        // set by climb(): the ancestor just above the subtree it returned,
+        // when that ancestor is known to be larger than the key
+        private Node<T> bound;
+
+        Cursor(Node<T> node) {
+            this.node = node;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * @return true iff the cursor is at an element
+         */
+        public boolean isValid() {
+            checkModCount();
+            return null != node;
+        }
+
+        /**
+         * @return the element at the cursor
+         * @throws NoSuchElementException if the cursor is off the end
+         */
+        public T get() {
+            checkModCount();
+            if (null == node) {
+                throw new NoSuchElementException();
+            }
+            return node.data;
+        }
+
+        /**
+         * Step to the next larger element
+         *
+         * @return true iff there was one (otherwise the cursor is off the end)
+         * @throws NoSuchElementException if the cursor is off the end
+         */
+        public boolean next() {
+            get();
+            node = successor(node);
+            return null != node;
+        }
+
+        /**
+         * Step to the next smaller element
+         *
+         * @return true iff there was one (otherwise the cursor is off the end)
+         * @throws NoSuchElementException if the cursor is off the end
+         */
+        public boolean previous() {
+            get();
+            node = predecessor(node);
+            return null != node;
+        }
+
+        /**
+         * Move to the smallest element &gt;= key, starting from the current
+         * position (from the root if the cursor is off the end)
+         *
+         * @param key the key to find
+         * @return true iff key itself is in the tree
+         */
+        public boolean seek(T key) {
+            checkModCount();
+            Node<T> n = (null == node) ? root : climb(node, key);
+            Node<T> ceiling = (null == node) ? null : bound;
+            while (null != n) {
+                int comparison = compare(key, n.data);
+                if (comparison == 0) {
+                    node = n;
+                    return true;
+                }
+                if (comparison < 0) {
+                    ceiling = n;
+                    n = n.leftChild;
+                } else {
+                    n = n.rightChild;
+                }
+            }
+            node = ceiling;
+            return false;
+        }
+
+        /**
+         * Insert an element, searching from the current position, and move
+         * the cursor to it. Inserting in order through a cursor costs O(1)
+         * comparisons amortized per element.
+         *
+         * @param addMe the element to add
+         * @return true iff the element was not already in the tree
+         */
+        public boolean insert(T addMe) {
+            checkModCount();
+            Node<T> n = (null == node) ? root : climb(node, addMe);
+            Node<T> trail = null;
+            int comparison = 0;
+            while (null != n) {
+                trail = n;
+                comparison = compare(addMe, n.data);
+                if (comparison == 0) {
+                    node = n;
+                    return false;
+                }
+                n = (comparison < 0) ? n.leftChild : n.rightChild;
+            }
+            node = attach(trail, comparison, addMe);
+            expectedModCount = modCount;
+            return true;
+        }
+
+        /**
+         * Remove the element at the cursor and move to the next larger one
+         *
+         * @throws NoSuchElementException if the cursor is off the end
+         */
+        public void remove() {
+            get();
+            node = removeNode(node);
+            expectedModCount = modCount;
+        }
+
+        private void checkModCount() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        /**
+         * Find a subtree holding key's place, as low as possible above a
+         * node. For a larger key: the subtree at n covers everything between
+         * its nearest ancestors on either side. The one on the left is below
+         * the key already, so only the one on the right (reached by climbing
+         * past ancestors we come to from their right, which costs no
+         * comparison) is tested: if the key is below it, n will do, else
+         * that ancestor is the new n. The other way around for a smaller key.
+         */
+        private Node<T> climb(Node<T> from, T key) {
+            Node<T> n = from;
+            bound = null;
+            int comparison = compare(key, n.data);
+            while (comparison != 0) {
+                Node<T> up = n;
+                if (comparison > 0) {
+                    while (null != up.parent && up == up.parent.rightChild) {
+                        up = up.parent;
+                    }
+                } else {
+                    while (null != up.parent && up == up.parent.leftChild) {
+                        up = up.parent;
+                    }
+                }
+                Node<T> side = up.parent;
+                if (null == side) {
+                    return n;
+                }
+                int sideComparison = compare(key, side.data);
+                if (sideComparison == 0 || (sideComparison < 0) == (comparison > 0)) {
+                    // key is between n's neighbours (or is side itself)
+                    if (sideComparison == 0) {
+                        return side;
+                    }
+                    if (comparison > 0) {
+                        bound = side;
+                    }
+                    return n;
+                }
+                n = side;
+                comparison = sideComparison;
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Iterator over the elements e with from &lt;= e &lt; to, IN ORDER. The
+     * start is found with one descent and the rest is produced lazily, so
+     * reading k elements costs O(height + k).
+     *
+     * @param from lower bound (inclusive), or null for no lower bound
+     * @param to upper bound (exclusive), or null for no upper bound
+     * @return an iterator over the range
+     */
+    public Iterator<T> iterator(T from, T to) {
+        Node<T> start = (null == from) ? leftmost(root) : ceilingNode(from, true);
+        return new RangeIterator(start, to, true);
+    }
+
+    /**
+     * Iterator that returns the node content in DESCENDING order
+     *
+     * @return an iterator that produces nodes largest first
+     */
+    public Iterator<T> descendingIterator() {
+        return new RangeIterator(rightmost(root), null, false);
+    }
+
+    /**
+     * Walks from a start node by successor (or predecessor) until it passes
+     * the fence element. Removes in place and fails fast, like the cursor.
+     */
+    private class RangeIterator implements Iterator<T> {
+
+        private Node<T> next;
+        private Node<T> lastReturned;
+        private int expectedModCount = modCount;
+        private final T fence;
+        private final boolean ascending;
+
+        RangeIterator(Node<T> start, T fence, boolean ascending) {
+            this.fence = fence;
+            this.ascending = ascending;
+            this.next = start;
+            checkFence();
+        }
+
+        private void checkFence() {
+            if (null != next && null != fence) {
+                int comparison = compare(next.data, fence);
+                if (ascending ? comparison >= 0 : comparison < 0) {
+                    next = null;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return null != next;
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (null == next) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next;
+            next = ascending ? successor(next) : predecessor(next);
+            checkFence();
+            return lastReturned.data;
+        }
+
+        /**
+         * Remove the element last returned. A node with two children takes
+         * its successor's content, so going up the next node is the one
+         * removeNode() names; going down the predecessor is not moved.
+         */
+        @Override
+        public void remove() {
+            if (null == lastReturned) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            Node<T> after = removeNode(lastReturned);
+            if (ascending && null != next) {
+                next = after;
+            }
+            lastReturned = null;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * A live view of the elements less than toElement
+     *
+     * @param toElement upper bound (exclusive)
+     * @return a SortedSet backed by this tree
+     */
+    public SortedSet<T> headSet(T toElement) {
+        return new RangeView(null, toElement);
+    }
+
+    /**
+     * A live view of the elements greater than or equal to fromElement
+     *
+     * @param fromElement lower bound (inclusive)
+     * @return a SortedSet backed by this tree
+     */
+    public SortedSet<T> tailSet(T fromElement) {
+        return new RangeView(fromElement, null);
+    }
+
+    /**
+     * A live view of the elements e with fromElement &lt;= e &lt; toElement
+     *
+     * @param fromElement lower bound (inclusive)
+     * @param toElement upper bound (exclusive)
+     * @return a SortedSet backed by this tree
+     */
+    public SortedSet<T> subSet(T fromElement, T toElement) {
+        if (compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException("subSet: fromElement > toElement");
+        }
+        return new RangeView(fromElement, toElement);
+    }
+
+    /**
+     * A SortedSet view of [from, to) of this tree (a null bound is open).
+     * Nothing is copied: iteration walks the tree from the lower bound, size()
+     * comes from two rank() descents, and changes made through the view (or
+     * to the tree) are seen by both.
+     */
+    private class RangeView extends AbstractSet<T> implements SortedSet<T> {
+
+        private final T from;
+        private final T to;
+
+        RangeView(T from, T to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        private boolean inRange(T element) {
+            return (null == from || compare(element, from) >= 0)
+                    && (null == to || compare(element, to) < 0);
+        }
+
+        private T checkedBound(T bound) {
+            if (!inRange(bound) && !(null != to && compare(bound, to) == 0)) {
+                throw new IllegalArgumentException("bound outside the view: " + bound);
+            }
+            return bound;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return BinarySearchTree.this.iterator(from, to);
+        }
+
+        @Override
+        public int size() {
+            int upper = (null == to) ? numberOfNodes() : rank(to);
+            int lower = (null == from) ? 0 : rank(from);
+            return Math.max(0, upper - lower);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return !iterator().hasNext();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            T element = (T) o;
+            return inRange(element) && search(element);
+        }
+
+        @Override
+        public boolean add(T element) {
+            if (!inRange(element)) {
+                throw new IllegalArgumentException("element outside the view: " + element);
+            }
+            return insert(element);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean remove(Object o) {
+            T element = (T) o;
+            return inRange(element) && BinarySearchTree.this.remove(element);
+        }
+
+        @Override
+        public Comparator<? super T> comparator() {
+            return comparator;
+        }
+
+        @Override
+        public SortedSet<T> subSet(T fromElement, T toElement) {
+            if (compare(fromElement, toElement) > 0) {
+                throw new IllegalArgumentException("subSet: fromElement > toElement");
+            }
+            return new RangeView(checkedBound(fromElement), checkedBound(toElement));
+        }
+
+        @Override
+        public SortedSet<T> headSet(T toElement) {
+            return new RangeView(from, checkedBound(toElement));
+        }
+
+        @Override
+        public SortedSet<T> tailSet(T fromElement) {
+            return new RangeView(checkedBound(fromElement), to);
+        }
+
+        @Override
+        public T first() {
+            Iterator<T> iter = iterator();
+            if (!iter.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return iter.next();
+        }
+
+        @Override
+        public T last() {
+            Node<T> node = (null == to) ? rightmost(root) : floorNode(to, false);
+            if (null == node || !inRange(node.data)) {
+                throw new NoSuchElementException();
+            }
+            return node.data;
+        }
+    }
+
+    /**
+     * A spliterator over the elements IN ORDER. Because every node knows the
+     * size of its subtree, the spliterator knows exactly how many elements it
+     * covers and can split its rank range in half, finding the first node of
+     * the new half with one select() descent. It reports SORTED, DISTINCT,
+     * ORDERED, SIZED and SUBSIZED, so parallel streams divide the work evenly.
+     *
+     * @return a splittable spliterator over the whole tree
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        return new RankSpliterator(0, numberOfNodes());
+    }
+
+    /**
+     * @return a sequential stream of the elements in order
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * @return a parallel stream of the elements in order. As with any
+     * collection, the tree must not be modified while the stream runs
+     */
+    public Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * A read-only copy of the current contents laid out for fast lookups
+     * (see FrozenBinarySearchTree). Later changes to this tree do not show
+     * through; the elements themselves are shared, not copied.
+     *
+     * @return the frozen index
+     * @throws IllegalArgumentException if the tree holds more than
+     * FrozenBinarySearchTree.MAX_KEYS elements
+     */
+    public FrozenBinarySearchTree<T> freeze() {
+        return new FrozenBinarySearchTree<>((null == root) ? new Object[0] : inorder(root), comparator);
+    }
+
+    /**
+     * Save the elements to a binary tree file (see MappedBinarySearchTree
+     * for the layout). The file is replaced atomically.
+     *
+     * @param file where to save
+     * @param codec how to write each element
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file, KeyCodec<T> codec) throws IOException {
+        MappedBinarySearchTree.write(this, file, codec);
+    }
+
+    /**
+     * Load a tree saved by save(). The file is memory mapped and the tree is
+     * built balanced from it in linear time. To query a file without
+     * building a tree at all, use MappedBinarySearchTree.open().
+     *
+     * @param <T> the element type
+     * @param file the tree file
+     * @param codec the codec it was saved with
+     * @param balance the mode of the new tree
+     * @return the tree
+     * @throws IOException if the file cannot be read or is not a tree file
+     * written with this codec
+     */
+    public static <T extends Comparable<T>> BinarySearchTree<T> load(Path file, KeyCodec<T> codec, Balance balance) throws IOException {
+        return MappedBinarySearchTree.open(file, codec).toTree(balance);
+    }
+
+    /**
+     * Load a tree saved by save() from a tree with a comparator. The new tree
+     * uses the same comparator.
+     *
+     * @param <T> the element type
+     * @param file the tree file
+     * @param codec the codec it was saved with
+     * @param comparator the comparator of the tree that was saved
+     * @param balance the mode of the new tree
+     * @return the tree
+     * @throws IOException if the file cannot be read or is not a tree file
+     * written with this codec
+     */
+    public static <T> BinarySearchTree<T> load(Path file, KeyCodec<T> codec, Comparator<? super T> comparator, Balance balance) throws IOException {
+        return MappedBinarySearchTree.open(file, codec, comparator).toTree(balance);
+    }
+
+    /**
+     * Covers the elements with ranks [lo, hi). The start node is located
+     * lazily, so splitting a spliterator that is never traversed costs
+     * nothing beyond the arithmetic.
+     */
+    private class RankSpliterator implements Spliterator<T> {
+
+        private int lo;
+        private final int hi;
+        private Node<T> current;
+
+        RankSpliterator(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            // once traversal has started, current is tied to lo: keep it
+            if (null != current || hi - lo < 2) {
+                return null;
+            }
+            int mid = (lo + hi) >>> 1;
+            Spliterator<T> prefix = new RankSpliterator(lo, mid);
+            lo = mid;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (lo >= hi) {
+                return false;
+            }
+            current = (null == current) ? selectNode(lo) : current;
+            action.accept(current.data);
+            ++lo;
+            current = (lo < hi) ? successor(current) : null;
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            if (lo >= hi) {
+                return;
+            }
+            Node<T> node = (null == current) ? selectNode(lo) : current;
+            for (; lo < hi; ++lo) {
+                action.accept(node.data);
+                node = successor(node);
+            }
+            current = null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return hi - lo;
+        }
+
+        @Override
+        public int characteristics() {
+            return SORTED | DISTINCT | ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            // null for natural ordering, as the Spliterator contract wants
+            return comparator;
         }
-        return null != current;
     }
 }
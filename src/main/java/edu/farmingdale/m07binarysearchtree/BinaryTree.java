@@ -4,27 +4,31 @@
  */
 package edu.farmingdale.m07binarysearchtree;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Consumer; // Consumer<T>. 
 //See docs.oracle.com/javase/8/docs/api/java/util/function/Consumer.html
+import java.util.function.ObjIntConsumer;
 
 /**
  *
  * @author gerstl Binary tree class. Note that this is not a BST class as this
  * imposes no ordering on the nodes
- * @param <T> type to be stored in the tree. Must implement Comparable
+ * @param <T> type to be stored in the tree. Ordering, if any, is up to
+ * subclasses (BinarySearchTree takes a Comparator or uses natural ordering)
  */
-public class BinaryTree<T extends Comparable<T>> {
+public class BinaryTree<T> {
 
     /**
      * Node for a binary tree. Includes a parent pointer and is protected so
      * derived classes have access.
      *
-     * @param <T> Type that implements Comparable so that this can be subclassed
-     * to impose ordering
+     * @param <T> the element type
      */
-    protected class Node<T extends Comparable<T>> {
+    protected class Node<T> {
 
         T data;
         Node<T> leftChild;
@@ -34,59 +38,75 @@ public class BinaryTree<T extends Comparable<T>> {
         // but this makes removal and the iterator easier to write 
         // non-recursively
         Node<T> parent;
+        // height of the subtree anchored here (a leaf is 0). Kept up to date
+        // by BinarySearchTree so that the AVL mode can rebalance
+        int height;
+        // number of nodes in the subtree anchored here, this one included
+        int size;
+        // sum of the hashCode()s of the data in the subtree anchored here
+        int hash;
 
         Node() {
             leftChild = null;
             rightChild = null;
             parent = null;
+            size = 1;
         }
 
         Node(Node theParent) {
             leftChild = null;
             rightChild = null;
             parent = theParent;
+            size = 1;
         }
     }
     protected Node root;
-    // This variable can be used in your methods to toggle verbose printing
-    // to System.err 
-    protected Boolean verbose;
+    // Where insert/search/remove report what they did (see TreeMetrics).
+    // null, the default, turns instrumentation off at the cost of one test
+    // per operation.
+    protected TreeMetrics metrics;
+
+    // in a parallel bfsLevels(), levels at least this wide are handed to the
+    // action on the common fork-join pool, each level whole as one task
+    static final int PARALLEL_LEVEL_THRESHOLD = 1 << 13;
 
     /**
      * Default CTOR
      */
     BinaryTree() {
         root = null;
-        verbose = false;
+        metrics = null;
     }
 
     /**
-     * Set the verbose variable. This does nothing in my code, but you are free
-     * to add verbose output to System.err that is toggled with this
+     * Report every later insert, search and remove to a metrics sink, e.g. a
+     * MetricsRecorder or a JfrTreeMetrics (null to stop). Copies of the tree
+     * do not inherit it.
+     *
+     * @param metrics the sink, or null
      */
-    public void setVerbose() {
-        verbose = true;
+    public void setMetrics(TreeMetrics metrics) {
+        this.metrics = metrics;
     }
 
     /**
-     * See setVerbose. Unsets the variable
+     * @return the metrics sink, null if there is none
      */
-    public void unsetVerbose() {
-        verbose = false;
+    public TreeMetrics getMetrics() {
+        return metrics;
     }
 
     /** 
-     * Count nodes. This could be done with a maintained count variable, 
-     * but also by counting recursively (as is done here).
+     * Count nodes. Every node keeps the size of its subtree, so this is 
+     * constant time.
      * @return the count of nodes. 
      */
     public int numberOfNodes() {
-        // note that root.left and root.right 
         return numberOfNodes(root);
     }
 
     /**
-     * Internal method to count nodes in a subtree recursively
+     * Internal method to count nodes in a subtree
      * @param t a node 
      * @return the count of nodes in the tree anchored at t
      */
@@ -94,7 +114,7 @@ public class BinaryTree<T extends Comparable<T>> {
         if (null == t) {
             return 0;
         }
-        return 1 + numberOfNodes(t.leftChild) + numberOfNodes(t.rightChild);
+        return t.size;
     }
 
     /**
@@ -106,7 +126,8 @@ public class BinaryTree<T extends Comparable<T>> {
     }
 
     /** 
-     * a recursive height method
+     * Height of a subtree. Every node keeps the height of its subtree, so 
+     * this is constant time and safe on a tree of any depth.
      * @param t a node
      * @return The height of the tree anchored at node
      */
@@ -114,7 +135,7 @@ public class BinaryTree<T extends Comparable<T>> {
         if (null == t) {
             return -1;
         }
-        return 1 + Math.max(height(t.leftChild), height(t.rightChild));
+        return t.height;
     }
 
     /**
@@ -144,7 +165,9 @@ public class BinaryTree<T extends Comparable<T>> {
         POSTFIX
     }
     /**
-     * A recursive DFS function
+     * A DFS function. The traversal is iterative: it follows the parent
+     * pointers, so it needs neither recursion nor a stack, works on a tree of
+     * any depth, and chooses the order once rather than once per node.
      * @param dfs The type of dfs (pre/in/post-fix).
      * @param t The node
      * @param actionClass An object implementing the Consumer interface. 
@@ -153,96 +176,279 @@ public class BinaryTree<T extends Comparable<T>> {
      * see https://docs.oracle.com/javase/8/docs/api/java/util/function/Consumer.html
      * See my call to the three wrappers in ShortBinarySearchTreeTest.java
      */
-        void recursiveDfs(DfsType dfs, Node t, Consumer actionClass) {
+    void dfs(DfsType dfs, Node t, Consumer actionClass) {
         if (null == t) {
             return;
         }
-        if (dfs.equals(DfsType.PREFIX)) {
-            actionClass.accept(t.data);
+        switch (dfs) {
+            case PREFIX:
+                prefix(t, actionClass);
+                break;
+            case INFIX:
+                infix(t, actionClass);
+                break;
+            default:
+                postfix(t, actionClass);
+                break;
         }
-        recursiveDfs(dfs, t.leftChild, actionClass);
-        if (dfs.equals(DfsType.INFIX)) {
-            actionClass.accept(t.data);
+    }
+
+    private void prefix(Node t, Consumer actionClass) {
+        Node n = t;
+        while (null != n) {
+            actionClass.accept(n.data);
+            if (null != n.leftChild) {
+                n = n.leftChild;
+            } else if (null != n.rightChild) {
+                n = n.rightChild;
+            } else {
+                // climb until we come up from a left child that has a right
+                // sibling; that sibling is next
+                while (n != t && (n != n.parent.leftChild || null == n.parent.rightChild)) {
+                    n = n.parent;
+                }
+                n = (n == t) ? null : n.parent.rightChild;
+            }
         }
-        recursiveDfs(dfs, t.rightChild, actionClass);
-        if (dfs.equals(DfsType.POSTFIX)) {
-            actionClass.accept(t.data);
+    }
+
+    private void infix(Node t, Consumer actionClass) {
+        Node n = leftmost(t);
+        while (null != n) {
+            actionClass.accept(n.data);
+            if (null != n.rightChild) {
+                n = leftmost(n.rightChild);
+            } else {
+                while (n != t && n == n.parent.rightChild) {
+                    n = n.parent;
+                }
+                n = (n == t) ? null : n.parent;
+            }
+        }
+    }
+
+    private void postfix(Node t, Consumer actionClass) {
+        Node n = firstPostfix(t);
+        while (null != n) {
+            actionClass.accept(n.data);
+            if (n == t) {
+                n = null;
+            } else if (n == n.parent.leftChild && null != n.parent.rightChild) {
+                n = firstPostfix(n.parent.rightChild);
+            } else {
+                n = n.parent;
+            }
         }
     }
 
     /**
-     * Public wrapper for recursiveDfs for prefix traversal
+     * @return the leftmost (smallest) node of the subtree at t
+     */
+    Node leftmost(Node t) {
+        while (null != t && null != t.leftChild) {
+            t = t.leftChild;
+        }
+        return t;
+    }
+
+    /**
+     * @return the rightmost (largest) node of the subtree at t
+     */
+    Node rightmost(Node t) {
+        while (null != t && null != t.rightChild) {
+            t = t.rightChild;
+        }
+        return t;
+    }
+
+    /**
+     * @return the first node of a postfix traversal of the subtree at t: the
+     * leaf reached by going left whenever possible, else right
+     */
+    private Node firstPostfix(Node t) {
+        while (true) {
+            if (null != t.leftChild) {
+                t = t.leftChild;
+            } else if (null != t.rightChild) {
+                t = t.rightChild;
+            } else {
+                return t;
+            }
+        }
+    }
+
+    /**
+     * Public wrapper for dfs for prefix traversal
      * @param actionObject An object of a class implementing Consumer
      * (so it has .accept(T t)
      */
     public void dfsPrefix(Consumer actionObject) {
-        recursiveDfs(DfsType.PREFIX, root, actionObject);
+        dfs(DfsType.PREFIX, root, actionObject);
     }
 
     /**
-     * Public wrapper for recursiveDfs for infix traversal
+     * Public wrapper for dfs for infix traversal
      * @param actionObject An object of a class implementing Consumer
      * (so it has .accept(T t)
      */
     public void dfsInfix(Consumer actionObject) {
-        recursiveDfs(DfsType.INFIX, root, actionObject);
+        dfs(DfsType.INFIX, root, actionObject);
     }
 
         /**
-     * Public wrapper for recursiveDfs for postfix traversal
+     * Public wrapper for dfs for postfix traversal
      * @param actionObject An object of a class implementing Consumer
      * (so it has .accept(T t)
      */
     public void dfsPostfix(Consumer actionObject) {
-        recursiveDfs(DfsType.POSTFIX, root, actionObject);
+        dfs(DfsType.POSTFIX, root, actionObject);
     }
 
     /**
-     * Performs a breadth-first search of the tree
+     * Performs a breadth-first search of the tree. The queue is an
+     * ArrayDeque made for the call: one array, grown to the width of the
+     * widest level, rather than an allocation per node. It is not kept on
+     * the tree, so traversals from several threads (or from inside the
+     * action) do not share it. An empty tree simply does nothing.
      * @param actionObject An object of a class implementing Consumer
      * (so it has .accept(T t)
      */
-  public void bfs(Consumer actionObject) {
-        Queue <Node> nq = new LinkedList();
+    public void bfs(Consumer actionObject) {
+        if (null == root) {
+            return;
+        }
+        var nq = new ArrayDeque<Node>();
         nq.add(root);
-
-        while(!nq.isEmpty()){
-            Node<T> cur = null;
-            cur = nq.remove();
+        while (!nq.isEmpty()) {
+            Node cur = nq.remove();
             actionObject.accept(cur.data);
-            if(cur.leftChild != null){
+            if (cur.leftChild != null) {
                 nq.add(cur.leftChild);
             }
-            if(cur.rightChild != null){
+            if (cur.rightChild != null) {
                 nq.add(cur.rightChild);
             }
-
         }
     } // bfs
 
+    /**
+     * Breadth-first, one level at a time: the action gets the elements at
+     * each depth, left to right, as one (unmodifiable) list along with the
+     * depth, root first. The two lists of nodes (this level and the next)
+     * are reused all the way down, but each level's list of elements is new,
+     * since the action may keep it.
+     * @param levelAction called with each level and its depth
+     */
+    public void bfsLevels(ObjIntConsumer<List<T>> levelAction) {
+        bfsLevels(levelAction, false);
+    }
+
+    /**
+     * Breadth-first, one level at a time (see bfsLevels(levelAction)). When
+     * parallel is true, each level at least PARALLEL_LEVEL_THRESHOLD wide is
+     * handed to the action on the common fork-join pool while the walk goes
+     * on to the levels below, so the action must be safe to call from
+     * several threads at once, and wide levels may be finished out of
+     * order. Narrower levels are done on the calling thread. Either way,
+     * every level is done when this returns.
+     *
+     * The parallelism is across levels only: a level is always one call of
+     * the action, on one thread, never split between workers. In a
+     * balanced tree the deepest level holds about half of the elements, so
+     * this at most about halves the time of the action. An action with a
+     * lot of work per element can split its own list further, e.g. with
+     * level.parallelStream().
+     * @param levelAction called with each level and its depth
+     * @param parallel whether wide levels may be processed concurrently
+     */
+    @SuppressWarnings("unchecked")
+    public void bfsLevels(ObjIntConsumer<List<T>> levelAction, boolean parallel) {
+        var tasks = new ArrayList<ForkJoinTask<?>>();
+        // the nodes of this level and of the next; the two lists swap roles
+        // and are reused all the way down
+        var level = new ArrayList<Node>();
+        var below = new ArrayList<Node>();
+        if (null != root) {
+            level.add(root);
+        }
+        try {
+            for (int depth = 0; !level.isEmpty(); ++depth) {
+                var elements = new ArrayList<T>(level.size());
+                for (Node n : level) {
+                    elements.add((T) n.data);
+                    if (null != n.leftChild) {
+                        below.add(n.leftChild);
+                    }
+                    if (null != n.rightChild) {
+                        below.add(n.rightChild);
+                    }
+                }
+                List<T> chunk = Collections.unmodifiableList(elements);
+                if (parallel && chunk.size() >= PARALLEL_LEVEL_THRESHOLD) {
+                    int d = depth;
+                    tasks.add(ForkJoinTask.adapt(() -> levelAction.accept(chunk, d)).fork());
+                } else {
+                    levelAction.accept(chunk, depth);
+                }
+                var swap = level;
+                level = below;
+                below = swap;
+                below.clear();
+            }
+        } finally {
+            // never leave a level still running behind the caller's back
+            for (ForkJoinTask<?> task : tasks) {
+                task.quietlyJoin();
+            }
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join(); // rethrows what the action threw, if anything
+        }
+    }
+
     // in order to make this print correctly, we can override toString() and 
     // a tree will be printable by System.out.print[ln].
     /**
      * Performs a right-first inorder traversal, and prints the content of each
-     * node with an indent proportional to it's depth
+     * node with an indent proportional to it's depth. Iterative (it follows
+     * parent pointers), so it works on a tree of any depth.
      * @param nd Node to print from
      * @param indent Degree of current indent (will increase in deeper subnodes)
      * @return A StringBuilder picture of the nodes.
      */
     StringBuilder reversedInorder(Node nd, int indent) {
         var rv = new StringBuilder();
-        if (null != nd) {
-            if (null != nd.rightChild) {
-                rv.append(reversedInorder(nd.rightChild, indent + 4));
-            }
+        if (null == nd) {
+            return rv;
+        }
+        // start at the rightmost node, counting the levels on the way down
+        Node n = nd;
+        while (null != n.rightChild) {
+            n = n.rightChild;
+            indent += 4;
+        }
+        while (null != n) {
             for (int i = 0; i < indent + 5; ++i) {
                 rv.append(" ");
             }
             rv.append("(" + (indent / 4) + ")");
-            rv.append(nd.data);
+            rv.append(n.data);
             rv.append("\n");
-            if (null != nd.leftChild) {
-                rv.append(reversedInorder(nd.leftChild, indent + 4));
+            // step to the in-order predecessor within the subtree at nd
+            if (null != n.leftChild) {
+                n = n.leftChild;
+                indent += 4;
+                while (null != n.rightChild) {
+                    n = n.rightChild;
+                    indent += 4;
+                }
+            } else {
+                while (n != nd && n == n.parent.leftChild) {
+                    n = n.parent;
+                    indent -= 4;
+                }
+                n = (n == nd) ? null : n.parent;
+                indent -= 4;
             }
         }
         return rv;
@@ -0,0 +1,96 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Checks fromSorted and insertAll: the content against a TreeSet, and that
+ * bulk loaded trees come out balanced even from sorted input.
+ *
+ * @author gerstl
+ */
+public class BulkLoadTest implements RunTest {
+
+    public String runTest() {
+        final int TEST_SIZE = 1_000_000;
+        List<Integer> sorted = new ArrayList<>();
+        for (int i = 0; i < TEST_SIZE; ++i) {
+            sorted.add(2 * i);
+        }
+        BinarySearchTree<Integer> theTree = BinarySearchTree.fromSorted(sorted);
+        if (theTree.numberOfNodes() != TEST_SIZE) {
+            return "Failed at H0100";
+        }
+        // perfectly balanced: height is floor(log2(n))
+        if (theTree.height() != 31 - Integer.numberOfLeadingZeros(TEST_SIZE)) {
+            return "Failed at H0101";
+        }
+        if (!theTree.search(2 * (TEST_SIZE - 1)) || theTree.search(1)) {
+            return "Failed at H0102";
+        }
+        try {
+            BinarySearchTree.fromSorted(List.of(1, 3, 2));
+            return "Failed at H0103";
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        // unsorted input with duplicates, into an empty and then a full tree
+        var random = new Random();
+        TreeSet<String> theSet = new TreeSet<>();
+        BinarySearchTree<String> stringTree = new BinarySearchTree<>();
+        List<String> batch = new ArrayList<>();
+        for (int i = 0; i < 50_000; ++i) {
+            batch.add(Integer.toString(random.nextInt(40_000)));
+        }
+        if (stringTree.insertAll(batch) != theSet.addAll(batch)) {
+            return "Failed at H0104";
+        }
+        batch.clear();
+        for (int i = 0; i < 50_000; ++i) {
+            batch.add(Integer.toString(random.nextInt(80_000)));
+        }
+        if (stringTree.insertAll(batch) != theSet.addAll(batch)) {
+            return "Failed at H0105";
+        }
+        // a small batch goes through plain insert
+        if (stringTree.insertAll(List.of("a", "b")) != theSet.addAll(List.of("a", "b"))) {
+            return "Failed at H0106";
+        }
+        // nothing new
+        if (stringTree.insertAll(new TreeSet<>(theSet))) {
+            return "Failed at H0107";
+        }
+        if (stringTree.numberOfNodes() != theSet.size()) {
+            return "Failed at H0108";
+        }
+        Iterator<String> setIterator = theSet.iterator();
+        for (String element : stringTree) {
+            if (!setIterator.hasNext() || !setIterator.next().equals(element)) {
+                return "Failed at H0109";
+            }
+        }
+        if (stringTree.height() > 1.44 * Math.log(stringTree.numberOfNodes() + 2) / Math.log(2)) {
+            return "Failed at H0110";
+        }
+        // a bulk loaded tree is an ordinary tree afterwards
+        for (String element : theSet) {
+            if (random.nextInt(4) == 0 && !stringTree.remove(element)) {
+                return "Failed at H0111";
+            }
+        }
+        return "";
+    }
+
+    public String getTestName() {
+        return "Bulk Load Test";
+    }
+}
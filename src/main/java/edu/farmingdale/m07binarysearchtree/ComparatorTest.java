@@ -0,0 +1,169 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Checks trees built with a Comparator: a reversed tree and a tree of
+ * padded numeric strings must agree with a TreeSet using the same
+ * comparator, elements that are not Comparable must work, trees with
+ * different orders must still compare equal (without splaying the one
+ * compared against), streams (also of a frozen
+ * copy) must report the order, and a search must cost exactly one
+ * comparison per level.
+ *
+ * @author gerstl
+ */
+public class ComparatorTest implements RunTest {
+
+    public String runTest() {
+        var random = new Random();
+
+        // reversed order
+        BinarySearchTree<Integer> reversed = new BinarySearchTree<>(Comparator.reverseOrder(), BinarySearchTree.Balance.AVL);
+        TreeSet<Integer> reversedSet = new TreeSet<>(Comparator.reverseOrder());
+        for (int i = 0; i < 20_000; ++i) {
+            int aNumber = random.nextInt(30_000);
+            if (reversed.insert(aNumber) != reversedSet.add(aNumber)) {
+                return "Failed at Q0100";
+            }
+        }
+        for (int i = 0; i < 5_000; ++i) {
+            int aNumber = random.nextInt(30_000);
+            if (reversed.remove(aNumber) != reversedSet.remove(aNumber)) {
+                return "Failed at Q0101";
+            }
+        }
+        if (!sameElements(reversed.iterator(), reversedSet.iterator())
+                || !reversed.select(0).equals(reversedSet.first())
+                || reversed.countInRange(20_000, 10_000) != reversedSet.subSet(20_000, true, 10_000, true).size()) {
+            return "Failed at Q0102";
+        }
+        if (reversed.subSet(20_000, 10_000).comparator() != reversed.comparator()) {
+            return "Failed at Q0103";
+        }
+        // a frozen copy keeps the order, and its stream must not pass for
+        // naturally sorted: sorted() has to sort it
+        List<Integer> small = new ArrayList<>();
+        BinarySearchTree<Integer> tenDown = new BinarySearchTree<>(Comparator.reverseOrder());
+        for (int i = 0; i < 10; ++i) {
+            tenDown.insert(i);
+            small.add(i);
+        }
+        if (!tenDown.freeze().stream().sorted().collect(Collectors.toList()).equals(small)
+                || !tenDown.stream().sorted().collect(Collectors.toList()).equals(small)
+                || tenDown.freeze().stream().findFirst().orElse(-1) != 9) {
+            return "Failed at Q0112";
+        }
+
+        // the same elements in natural order make an equal tree
+        BinarySearchTree<Integer> natural = new BinarySearchTree<>();
+        natural.insertAll(reversedSet);
+        if (!natural.equals(reversed) || !reversed.equals(natural) || natural.hashCode() != reversed.hashCode()) {
+            return "Failed at Q0104";
+        }
+        // comparing across orders looks elements up in the argument, which
+        // must not splay it
+        BinarySearchTree<Integer> splayed = new BinarySearchTree<>(BinarySearchTree.Balance.SPLAY);
+        splayed.insertAll(reversedSet);
+        var rootBefore = splayed.root;
+        if (!reversed.equals(splayed) || splayed.root != rootBefore) {
+            return "Failed at Q0113";
+        }
+        // set algebra across orders keeps this tree's order
+        BinarySearchTree<Integer> evens = new BinarySearchTree<>();
+        for (int i = 0; i < 30_000; i += 2) {
+            evens.insert(i);
+        }
+        reversed.difference(evens);
+        reversedSet.removeIf(e -> e % 2 == 0);
+        if (!sameElements(reversed.iterator(), reversedSet.iterator())) {
+            return "Failed at Q0105";
+        }
+
+        // padded numeric strings (as in LargeBinarySearchTreeTest), and
+        // unpadded ones, which sort by value
+        Comparator<String> numeric = KeyComparators.numericStrings();
+        BinarySearchTree<String> padded = new BinarySearchTree<>(numeric, BinarySearchTree.Balance.AVL);
+        TreeSet<String> paddedSet = new TreeSet<>();
+        BinarySearchTree<String> unpadded = new BinarySearchTree<>(numeric);
+        TreeSet<Integer> unpaddedSet = new TreeSet<>();
+        for (int i = 0; i < 20_000; ++i) {
+            int aNumber = random.nextInt(100_000);
+            String sNumber = String.format("%010d", aNumber);
+            if (padded.insert(sNumber) != paddedSet.add(sNumber)) {
+                return "Failed at Q0106";
+            }
+            if (unpadded.insert(Integer.toString(aNumber)) != unpaddedSet.add(aNumber)) {
+                return "Failed at Q0107";
+            }
+        }
+        if (!sameElements(padded.iterator(), paddedSet.iterator())) {
+            return "Failed at Q0108";
+        }
+        List<String> expected = new ArrayList<>();
+        unpaddedSet.forEach(e -> expected.add(e.toString()));
+        if (!sameElements(unpadded.iterator(), expected.iterator())) {
+            return "Failed at Q0109";
+        }
+
+        // elements that are not Comparable at all
+        BinarySearchTree<int[]> pairs = new BinarySearchTree<>(
+                Comparator.<int[]>comparingInt(p -> p[0]).thenComparingInt(p -> p[1]), BinarySearchTree.Balance.AVL);
+        for (int i = 0; i < 1_000; ++i) {
+            pairs.insert(new int[]{i % 10, i / 10});
+        }
+        if (pairs.numberOfNodes() != 1_000 || !pairs.search(new int[]{3, 7})
+                || pairs.search(new int[]{3, 700}) || pairs.select(15)[0] != 0 || pairs.select(150)[0] != 1) {
+            return "Failed at Q0110";
+        }
+
+        // one comparison per level: count the comparator's calls
+        long[] calls = {0};
+        BinarySearchTree<Integer> counted = new BinarySearchTree<>((a, b) -> {
+            ++calls[0];
+            return Integer.compare(a, b);
+        }, BinarySearchTree.Balance.AVL);
+        for (int i = 0; i < 10_000; ++i) {
+            counted.insert(random.nextInt(20_000));
+        }
+        var recorder = new MetricsRecorder();
+        counted.setMetrics(recorder);
+        calls[0] = 0;
+        for (int i = 0; i < 10_000; ++i) {
+            counted.search(random.nextInt(20_000));
+        }
+        long levels = 0;
+        long[] paths = recorder.snapshot().pathLengths(TreeMetrics.Operation.SEARCH);
+        for (int length = 0; length < paths.length; ++length) {
+            levels += length * paths[length];
+        }
+        if (calls[0] != levels || levels == 0) {
+            return "Failed at Q0111";
+        }
+        return "";
+    }
+
+    private static <T> boolean sameElements(Iterator<T> a, Iterator<T> b) {
+        while (a.hasNext() && b.hasNext()) {
+            if (!a.next().equals(b.next())) {
+                return false;
+            }
+        }
+        return !a.hasNext() && !b.hasNext();
+    }
+
+    public String getTestName() {
+        return "Comparator Test";
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * (c) David Gerstl, 2021. all rights reserved. For use
+ * in my CSC programming classes
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * A thread safe binary search tree with the operations of BinarySearchTree.
+ *
+ * The nodes are immutable. An insert or remove builds new copies of the
+ * O(log n) nodes on the path it changes (sharing everything else with the
+ * old tree), then publishes the new root with a compare-and-set. If another
+ * writer got there first the CAS fails and the operation is retried against
+ * the new root. Readers simply read the root once and work on that version:
+ * search, iterator and the traversals never lock, never wait for a writer,
+ * and always see a consistent snapshot.
+ *
+ * The tree is always AVL balanced, which keeps both the descent and the
+ * number of nodes copied per write logarithmic.
+ *
+ * @author gerstl
+ * @param <T> type to be stored in the tree. Must implement Comparable
+ */
+public class ConcurrentBinarySearchTree<T extends Comparable<T>> implements Iterable<T> {
+
+    /**
+     * Immutable node. Height and size are those of the subtree anchored here
+     */
+    static final class Node<T> {
+
+        final T data;
+        final Node<T> leftChild;
+        final Node<T> rightChild;
+        final int height;
+        final int size;
+
+        Node(T data, Node<T> leftChild, Node<T> rightChild) {
+            this.data = data;
+            this.leftChild = leftChild;
+            this.rightChild = rightChild;
+            this.height = 1 + Math.max(nodeHeight(leftChild), nodeHeight(rightChild));
+            this.size = 1 + nodeSize(leftChild) + nodeSize(rightChild);
+        }
+    }
+
+    private final AtomicReference<Node<T>> root = new AtomicReference<>();
+
+    /**
+     * Default ctor
+     */
+    public ConcurrentBinarySearchTree() {
+    }
+
+    /**
+     * @return the count of nodes at this instant
+     */
+    public int numberOfNodes() {
+        return nodeSize(root.get());
+    }
+
+    /**
+     * @return the height of the tree at this instant (-1 if empty)
+     */
+    public int height() {
+        return nodeHeight(root.get());
+    }
+
+    /**
+     * @return true iff the tree is empty at this instant
+     */
+    public boolean isEmpty() {
+        return root.get() == null;
+    }
+
+    /**
+     * clears the entire tree
+     */
+    public void clear() {
+        root.set(null);
+    }
+
+    /**
+     * Search for an element. Never blocks
+     *
+     * @param findMe the element to look for
+     * @return true iff the element is in the tree
+     */
+    public boolean search(T findMe) {
+        Node<T> current = root.get();
+        while (current != null) {
+            int comparison = findMe.compareTo(current.data);
+            if (comparison == 0) {
+                return true;
+            }
+            current = (comparison < 0) ? current.leftChild : current.rightChild;
+        }
+        return false;
+    }
+
+    /**
+     * Insert an element
+     *
+     * @param addMe the element to add
+     * @return true iff the element was not already in the tree
+     */
+    public boolean insert(T addMe) {
+        while (true) {
+            Node<T> oldRoot = root.get();
+            Node<T> newRoot = insert(oldRoot, addMe);
+            if (newRoot == oldRoot) {
+                return false;
+            }
+            if (root.compareAndSet(oldRoot, newRoot)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Remove an element
+     *
+     * @param removeMe the element to remove
+     * @return true iff the element was in the tree
+     */
+    public boolean remove(T removeMe) {
+        while (true) {
+            Node<T> oldRoot = root.get();
+            Node<T> newRoot = remove(oldRoot, removeMe);
+            if (newRoot == oldRoot) {
+                return false;
+            }
+            if (root.compareAndSet(oldRoot, newRoot)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Path copying insert
+     *
+     * @return the new subtree, or node itself if addMe is a duplicate
+     */
+    private static <T extends Comparable<T>> Node<T> insert(Node<T> node, T addMe) {
+        if (node == null) {
+            return new Node<>(addMe, null, null);
+        }
+        int comparison = addMe.compareTo(node.data);
+        if (comparison < 0) {
+            Node<T> newLeft = insert(node.leftChild, addMe);
+            return (newLeft == node.leftChild) ? node : balance(node.data, newLeft, node.rightChild);
+        }
+        if (comparison > 0) {
+            Node<T> newRight = insert(node.rightChild, addMe);
+            return (newRight == node.rightChild) ? node : balance(node.data, node.leftChild, newRight);
+        }
+        return node;
+    }
+
+    /**
+     * Path copying remove
+     *
+     * @return the new subtree, or node itself if removeMe is not there
+     */
+    private static <T extends Comparable<T>> Node<T> remove(Node<T> node, T removeMe) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = removeMe.compareTo(node.data);
+        if (comparison < 0) {
+            Node<T> newLeft = remove(node.leftChild, removeMe);
+            return (newLeft == node.leftChild) ? node : balance(node.data, newLeft, node.rightChild);
+        }
+        if (comparison > 0) {
+            Node<T> newRight = remove(node.rightChild, removeMe);
+            return (newRight == node.rightChild) ? node : balance(node.data, node.leftChild, newRight);
+        }
+        if (node.leftChild == null) {
+            return node.rightChild;
+        }
+        if (node.rightChild == null) {
+            return node.leftChild;
+        }
+        // two children: the successor takes this node's place
+        Node<T> successor = node.rightChild;
+        while (successor.leftChild != null) {
+            successor = successor.leftChild;
+        }
+        return balance(successor.data, node.leftChild, removeMin(node.rightChild));
+    }
+
+    private static <T> Node<T> removeMin(Node<T> node) {
+        if (node.leftChild == null) {
+            return node.rightChild;
+        }
+        return balance(node.data, removeMin(node.leftChild), node.rightChild);
+    }
+
+    /**
+     * Build a node from data and two AVL subtrees whose heights differ by at
+     * most two, rotating if needed
+     */
+    private static <T> Node<T> balance(T data, Node<T> left, Node<T> right) {
+        int balanceFactor = nodeHeight(left) - nodeHeight(right);
+        if (balanceFactor > 1) {
+            if (nodeHeight(left.leftChild) >= nodeHeight(left.rightChild)) {
+                // single right rotation
+                return new Node<>(left.data, left.leftChild, new Node<>(data, left.rightChild, right));
+            }
+            // left-right
+            Node<T> pivot = left.rightChild;
+            return new Node<>(pivot.data,
+                    new Node<>(left.data, left.leftChild, pivot.leftChild),
+                    new Node<>(data, pivot.rightChild, right));
+        }
+        if (balanceFactor < -1) {
+            if (nodeHeight(right.rightChild) >= nodeHeight(right.leftChild)) {
+                // single left rotation
+                return new Node<>(right.data, new Node<>(data, left, right.leftChild), right.rightChild);
+            }
+            // right-left
+            Node<T> pivot = right.leftChild;
+            return new Node<>(pivot.data,
+                    new Node<>(data, left, pivot.leftChild),
+                    new Node<>(right.data, pivot.rightChild, right.rightChild));
+        }
+        return new Node<>(data, left, right);
+    }
+
+    private static int nodeHeight(Node<?> node) {
+        return (node == null) ? -1 : node.height;
+    }
+
+    private static int nodeSize(Node<?> node) {
+        return (node == null) ? 0 : node.size;
+    }
+
+    /**
+     * Iterator--returns the elements IN ORDER from the snapshot of the tree
+     * taken when the iterator was created. Never blocks, and is unaffected by
+     * later inserts and removes.
+     *
+     * @return an iterator that produces elements in order.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+
+            private final ArrayDeque<Node<T>> s = new ArrayDeque<>();
+            private Node<T> curr = root.get();
+
+            @Override
+            public boolean hasNext() {
+                return (!s.isEmpty() || curr != null);
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                while (curr != null) {
+                    s.push(curr);
+                    curr = curr.leftChild;
+                }
+                Node<T> node = s.pop();
+                curr = node.rightChild;
+                return node.data;
+            }
+        };
+    }
+
+    /**
+     * Prefix traversal of a snapshot
+     *
+     * @param actionObject called with each element
+     */
+    public void dfsPrefix(Consumer<? super T> actionObject) {
+        var s = new ArrayDeque<Node<T>>();
+        Node<T> snapshot = root.get();
+        if (snapshot != null) {
+            s.push(snapshot);
+        }
+        while (!s.isEmpty()) {
+            Node<T> node = s.pop();
+            actionObject.accept(node.data);
+            if (node.rightChild != null) {
+                s.push(node.rightChild);
+            }
+            if (node.leftChild != null) {
+                s.push(node.leftChild);
+            }
+        }
+    }
+
+    /**
+     * Infix (in order) traversal of a snapshot
+     *
+     * @param actionObject called with each element
+     */
+    public void dfsInfix(Consumer<? super T> actionObject) {
+        iterator().forEachRemaining(actionObject);
+    }
+
+    /**
+     * Postfix traversal of a snapshot
+     *
+     * @param actionObject called with each element
+     */
+    public void dfsPostfix(Consumer<? super T> actionObject) {
+        var s = new ArrayDeque<Node<T>>();
+        Node<T> curr = root.get();
+        Node<T> lastVisited = null;
+        while (curr != null || !s.isEmpty()) {
+            if (curr != null) {
+                s.push(curr);
+                curr = curr.leftChild;
+            } else {
+                Node<T> top = s.peek();
+                if (top.rightChild != null && top.rightChild != lastVisited) {
+                    curr = top.rightChild;
+                } else {
+                    actionObject.accept(top.data);
+                    lastVisited = s.pop();
+                }
+            }
+        }
+    }
+
+    /**
+     * Breadth-first traversal of a snapshot
+     *
+     * @param actionObject called with each element
+     */
+    public void bfs(Consumer<? super T> actionObject) {
+        var nq = new ArrayDeque<Node<T>>();
+        Node<T> snapshot = root.get();
+        if (snapshot != null) {
+            nq.add(snapshot);
+        }
+        while (!nq.isEmpty()) {
+            Node<T> cur = nq.remove();
+            actionObject.accept(cur.data);
+            if (cur.leftChild != null) {
+                nq.add(cur.leftChild);
+            }
+            if (cur.rightChild != null) {
+                nq.add(cur.rightChild);
+            }
+        }
+    }
+}
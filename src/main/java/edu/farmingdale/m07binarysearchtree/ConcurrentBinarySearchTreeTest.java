@@ -0,0 +1,145 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Multi-threaded stress test of ConcurrentBinarySearchTree against a
+ * ConcurrentSkipListSet. Each writer thread owns the keys congruent to its
+ * index, so the per-key sequence of operations is the same for both
+ * structures and every insert/remove result must agree, even though the
+ * writers run concurrently. Reader threads search and iterate the whole time,
+ * checking that every snapshot is sorted and duplicate free.
+ *
+ * @author gerstl
+ */
+public class ConcurrentBinarySearchTreeTest implements RunTest {
+
+    public String runTest() {
+        final int WRITERS = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+        final int READERS = WRITERS;
+        final int OPS_PER_WRITER = 100_000;
+        final int KEY_RANGE = 20_000;
+        var theTree = new ConcurrentBinarySearchTree<Integer>();
+        var theSet = new ConcurrentSkipListSet<Integer>();
+        var writersDone = new AtomicBoolean(false);
+        var start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + READERS);
+        var writers = new ArrayList<Future<String>>();
+        var readers = new ArrayList<Future<String>>();
+        try {
+            for (int w = 0; w < WRITERS; ++w) {
+                final int me = w;
+                writers.add(pool.submit(() -> {
+                    start.await();
+                    var random = ThreadLocalRandom.current();
+                    for (int i = 0; i < OPS_PER_WRITER; ++i) {
+                        // a key this thread owns
+                        int key = random.nextInt(KEY_RANGE / WRITERS) * WRITERS + me;
+                        if (random.nextInt(3) == 0) {
+                            if (theTree.remove(key) != theSet.remove(key)) {
+                                return "Failed at G0100";
+                            }
+                        } else {
+                            if (theTree.insert(key) != theSet.add(key)) {
+                                return "Failed at G0101";
+                            }
+                        }
+                    }
+                    return "";
+                }));
+            }
+            for (int r = 0; r < READERS; ++r) {
+                final boolean iterate = (r % 2 == 0);
+                readers.add(pool.submit(() -> {
+                    start.await();
+                    var random = ThreadLocalRandom.current();
+                    while (!writersDone.get()) {
+                        if (iterate) {
+                            Integer previous = null;
+                            int count = 0;
+                            for (Integer element : theTree) {
+                                if (previous != null && previous >= element) {
+                                    return "Failed at G0102";
+                                }
+                                previous = element;
+                                ++count;
+                            }
+                            if (count > KEY_RANGE) {
+                                return "Failed at G0103";
+                            }
+                        } else {
+                            int key = random.nextInt(KEY_RANGE);
+                            // no way to check the answer while writers run,
+                            // but it must not throw or hang
+                            theTree.search(key);
+                        }
+                    }
+                    return "";
+                }));
+            }
+            start.countDown();
+            for (Future<String> writer : writers) {
+                String result = writer.get();
+                if (!result.isEmpty()) {
+                    return result;
+                }
+            }
+            writersDone.set(true);
+            for (Future<String> reader : readers) {
+                String result = reader.get();
+                if (!result.isEmpty()) {
+                    return result;
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Concurrent test threw " + e);
+            return "Failed at G0104";
+        } finally {
+            // on an early failure the readers must still be told to stop
+            writersDone.set(true);
+            pool.shutdownNow();
+            try {
+                pool.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // quiescent: the two must now hold exactly the same elements
+        if (theTree.numberOfNodes() != theSet.size()) {
+            return "Failed at G0105";
+        }
+        Iterator<Integer> setIterator = theSet.iterator();
+        for (Integer element : theTree) {
+            if (!setIterator.hasNext() || !setIterator.next().equals(element)) {
+                return "Failed at G0106";
+            }
+        }
+        for (int key = 0; key < KEY_RANGE; ++key) {
+            if (theTree.search(key) != theSet.contains(key)) {
+                return "Failed at G0107";
+            }
+        }
+        if (theTree.height() > 1.44 * Math.log(theTree.numberOfNodes() + 2) / Math.log(2)) {
+            return "Failed at G0108";
+        }
+        return "";
+    }
+
+    public String getTestName() {
+        return "Concurrent Binary Search Tree Test";
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * Exercises the copy ctor and clone(): a degenerate tree deep enough to
+ * overflow a recursive copy, a tree large enough for the parallel copy, and
+ * a mutable element type that needs the deep (gson) copier.
+ *
+ * @author gerstl
+ */
+public class CopyBinarySearchTreeTest implements RunTest {
+
+    public String runTest() {
+        // a chain: every insert goes to the right
+        BinarySearchTree<Integer> chain = new BinarySearchTree<>();
+        final int CHAIN_SIZE = 20_000;
+        for (int i = 0; i < CHAIN_SIZE; ++i) {
+            chain.insert(i);
+        }
+        BinarySearchTree<Integer> chainCopy = new BinarySearchTree<>(chain);
+        Iterator<Integer> chainIterator = chainCopy.iterator();
+        for (int i = 0; i < CHAIN_SIZE; ++i) {
+            if (!chainIterator.hasNext() || chainIterator.next() != i) {
+                return "Failed at F0100";
+            }
+        }
+        // the traversals are iterative, so even a 20,000 deep chain compares
+        if (!sameStructure(chain, chainCopy) || chainCopy.height() != CHAIN_SIZE - 1) {
+            return "Failed at F0107";
+        }
+        chainCopy.remove(0);
+        if (!chain.search(0) || chainCopy.search(0)) {
+            return "Failed at F0101";
+        }
+
+        // big enough to be split across the fork-join pool
+        BinarySearchTree<String> big = new BinarySearchTree<>(BinarySearchTree.Balance.AVL);
+        var random = new Random();
+        while (big.numberOfNodes() < 4 * BinarySearchTree.PARALLEL_COPY_THRESHOLD) {
+            big.insert(Integer.toString(random.nextInt()));
+        }
+        BinarySearchTree<String> bigCopy = new BinarySearchTree<>();
+        bigCopy.clone(big);
+        if (!sameStructure(big, bigCopy) || bigCopy.numberOfNodes() != big.numberOfNodes()) {
+            return "Failed at F0102";
+        }
+        if (!big.equals(bigCopy) || big.hashCode() != bigCopy.hashCode()) {
+            return "Failed at F0103";
+        }
+        // the copy must be balanced the same way
+        for (int i = 0; i < 10_000; ++i) {
+            bigCopy.insert("z" + i);
+        }
+        if (bigCopy.height() > 1.44 * Math.log(bigCopy.numberOfNodes() + 2) / Math.log(2)) {
+            return "Failed at F0104";
+        }
+
+        // mutable elements are deep copied by default, shared on request
+        BinarySearchTree<StringBuilder> builders = new BinarySearchTree<>();
+        for (int i = 0; i < 100; ++i) {
+            builders.insert(new StringBuilder("b" + (1000 + i)));
+        }
+        BinarySearchTree<StringBuilder> builderCopy = new BinarySearchTree<>(builders);
+        Iterator<StringBuilder> copyIterator = builderCopy.iterator();
+        for (StringBuilder original : builders) {
+            StringBuilder copy = copyIterator.next();
+            if (copy == original || copy.compareTo(original) != 0) {
+                return "Failed at F0105";
+            }
+        }
+        BinarySearchTree<StringBuilder> sharedCopy = new BinarySearchTree<>(builders, e -> e);
+        copyIterator = sharedCopy.iterator();
+        for (StringBuilder original : builders) {
+            if (copyIterator.next() != original) {
+                return "Failed at F0106";
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Compare two trees node by node through a prefix traversal, which
+     * differs if the shapes differ
+     */
+    private static <T extends Comparable<T>> boolean sameStructure(BinarySearchTree<T> a, BinarySearchTree<T> b) {
+        StringBuilder aSB = new StringBuilder();
+        StringBuilder bSB = new StringBuilder();
+        a.dfsPrefix((t) -> {aSB.append(t + ", ");});
+        b.dfsPrefix((t) -> {bSB.append(t + ", ");});
+        return aSB.toString().equals(bSB.toString());
+    }
+
+    public String getTestName() {
+        return "Copy Binary Search Tree Test";
+    }
+}
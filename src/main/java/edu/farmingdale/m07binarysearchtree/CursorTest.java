@@ -0,0 +1,217 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Checks cursors in every balancing mode: seeks (near and far) must land on
+ * the same element as TreeSet.ceiling(), stepping must follow the set's
+ * order both ways, inserting and removing through a cursor must keep the
+ * tree right, other changes must make the cursor fail fast, and a seek to a
+ * nearby key must cost far fewer comparisons than a search from the root.
+ * In SPLAY mode a seek must leave the root alone and an insert through the
+ * cursor must splay the new element to the root.
+ *
+ * @author gerstl
+ */
+public class CursorTest implements RunTest {
+
+    public String runTest() {
+        for (BinarySearchTree.Balance balance : BinarySearchTree.Balance.values()) {
+            String result = runTest(balance);
+            if (!result.isEmpty()) {
+                System.out.println("Cursor test failed in mode " + balance);
+                return result;
+            }
+        }
+        return localityTest();
+    }
+
+    private String runTest(BinarySearchTree.Balance balance) {
+        var random = new Random();
+        BinarySearchTree<Integer> theTree = new BinarySearchTree<>(balance);
+        TreeSet<Integer> theSet = new TreeSet<>();
+        for (int i = 0; i < 20_000; ++i) {
+            int aNumber = random.nextInt(100_000);
+            theTree.insert(aNumber);
+            theSet.add(aNumber);
+        }
+
+        // a random walk of seeks, mostly short hops with the odd long one
+        BinarySearchTree<Integer>.Cursor cursor = theTree.cursor();
+        if (!cursor.isValid() || !cursor.get().equals(theSet.first())) {
+            return "Failed at S0100";
+        }
+        int key = 50_000;
+        for (int i = 0; i < 50_000; ++i) {
+            key = (random.nextInt(10) == 0) ? random.nextInt(110_000) - 5_000 : key + random.nextInt(201) - 100;
+            boolean found = cursor.seek(key);
+            Integer expected = theSet.ceiling(key);
+            if (found != theSet.contains(key) || cursor.isValid() != (null != expected)
+                    || (null != expected && !cursor.get().equals(expected))) {
+                return "Failed at S0101";
+            }
+        }
+
+        // stepping both ways
+        cursor = theTree.cursor(30_000);
+        Iterator<Integer> up = theSet.tailSet(30_000).iterator();
+        for (int i = 0; i < 1_000; ++i) {
+            if (!cursor.get().equals(up.next())) {
+                return "Failed at S0102";
+            }
+            cursor.next();
+        }
+        Iterator<Integer> down = theSet.headSet(cursor.get(), false).descendingIterator();
+        for (int i = 0; i < 2_000; ++i) {
+            cursor.previous();
+            if (!cursor.get().equals(down.next())) {
+                return "Failed at S0103";
+            }
+        }
+        cursor = theTree.cursor(theSet.last());
+        if (cursor.next() || cursor.isValid()) {
+            return "Failed at S0104";
+        }
+        try {
+            cursor.get();
+            return "Failed at S0105";
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+
+        // insert at the cursor: a run of new keys appended in order, and
+        // duplicates, which only move the cursor
+        cursor = theTree.cursor(200_000);
+        for (int i = 200_000; i < 205_000; ++i) {
+            if (!cursor.insert(i) || !cursor.get().equals(i)) {
+                return "Failed at S0106";
+            }
+            theSet.add(i);
+        }
+        for (int i = 0; i < 5_000; ++i) {
+            int aNumber = random.nextInt(100_000);
+            if (cursor.insert(aNumber) != theSet.add(aNumber) || !cursor.get().equals(aNumber)) {
+                return "Failed at S0107";
+            }
+        }
+
+        if (balance == BinarySearchTree.Balance.SPLAY) {
+            var rootBefore = theTree.root;
+            cursor.seek(42);
+            if (theTree.root != rootBefore) {
+                return "Failed at S0116";
+            }
+            cursor.insert(-1);
+            theSet.add(-1);
+            if (!Integer.valueOf(-1).equals(theTree.root.data) || !cursor.get().equals(-1)) {
+                return "Failed at S0117";
+            }
+        }
+
+        // remove through the cursor: every third element from 10_000 up
+        cursor = theTree.cursor(10_000);
+        Iterator<Integer> walk = theSet.tailSet(10_000).iterator();
+        int count = 0;
+        while (walk.hasNext()) {
+            Integer element = walk.next();
+            if (!cursor.get().equals(element)) {
+                return "Failed at S0108";
+            }
+            if (++count % 3 == 0) {
+                walk.remove();
+                cursor.remove();
+            } else {
+                cursor.next();
+            }
+        }
+        if (cursor.isValid() || theTree.numberOfNodes() != theSet.size()) {
+            return "Failed at S0109";
+        }
+        Iterator<Integer> setIterator = theSet.iterator();
+        for (Integer element : theTree) {
+            if (!element.equals(setIterator.next())) {
+                return "Failed at S0110";
+            }
+        }
+        if (balance == BinarySearchTree.Balance.AVL
+                && theTree.height() > 1.44 * Math.log(theSet.size() + 2) / Math.log(2)) {
+            return "Failed at S0111";
+        }
+
+        // a change made elsewhere makes the cursor fail fast
+        cursor = theTree.cursor();
+        BinarySearchTree<Integer>.Cursor other = theTree.cursor();
+        other.remove();
+        theTree.search(12_345);
+        try {
+            cursor.next();
+            return "Failed at S0112";
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+        if (!other.isValid()) {
+            return "Failed at S0113";
+        }
+        return "";
+    }
+
+    /**
+     * Short hops from a cursor against searches from the root, counted with
+     * a comparator that counts its calls
+     */
+    private String localityTest() {
+        var random = new Random();
+        long[] calls = {0};
+        BinarySearchTree<Integer> theTree = new BinarySearchTree<>((a, b) -> {
+            ++calls[0];
+            return Integer.compare(a, b);
+        }, BinarySearchTree.Balance.AVL);
+        for (int i = 0; i < 250_000; ++i) {
+            theTree.insert(2 * i);
+        }
+        int[] keys = new int[100_000];
+        keys[0] = 250_000;
+        for (int i = 1; i < keys.length; ++i) {
+            keys[i] = Math.floorMod(keys[i - 1] + random.nextInt(33) - 16, 500_000);
+        }
+        calls[0] = 0;
+        for (int key : keys) {
+            theTree.search(key);
+        }
+        long fromRoot = calls[0];
+        calls[0] = 0;
+        BinarySearchTree<Integer>.Cursor cursor = theTree.cursor();
+        for (int key : keys) {
+            cursor.seek(key);
+        }
+        long fromFinger = calls[0];
+        if (fromFinger * 2 > fromRoot) {
+            System.out.println("Comparisons per lookup: " + fromRoot / keys.length
+                    + " from the root, " + fromFinger / keys.length + " from a cursor");
+            return "Failed at S0114";
+        }
+        // inserting in order through a cursor
+        calls[0] = 0;
+        cursor = theTree.cursor(500_000);
+        for (int i = 500_000; i < 600_000; ++i) {
+            cursor.insert(i);
+        }
+        if (calls[0] > 3 * 100_000) {
+            return "Failed at S0115";
+        }
+        return "";
+    }
+
+    public String getTestName() {
+        return "Cursor Test";
+    }
+}
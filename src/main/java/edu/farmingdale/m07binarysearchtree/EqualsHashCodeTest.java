@@ -0,0 +1,86 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Checks equals and the incrementally maintained hashCode. The tree hash is
+ * the sum of the element hashes, which is exactly what Set.hashCode() is, so
+ * it can be checked against a TreeSet after every kind of change.
+ *
+ * @author gerstl
+ */
+public class EqualsHashCodeTest implements RunTest {
+
+    public String runTest() {
+        var random = new Random();
+        BinarySearchTree<String> theTree = new BinarySearchTree<>();
+        BinarySearchTree<String> balancedTree = new BinarySearchTree<>(BinarySearchTree.Balance.AVL);
+        TreeSet<String> theSet = new TreeSet<>();
+        for (int i = 0; i < 20_000; ++i) {
+            String sNumber = Integer.toString(random.nextInt(30_000));
+            theTree.insert(sNumber);
+            balancedTree.insert(sNumber);
+            theSet.add(sNumber);
+        }
+        for (int i = 0; i < 10_000; ++i) {
+            String sNumber = Integer.toString(random.nextInt(30_000));
+            theTree.remove(sNumber);
+            balancedTree.remove(sNumber);
+            theSet.remove(sNumber);
+        }
+        if (theTree.hashCode() != theSet.hashCode()) {
+            return "Failed at I0100";
+        }
+        // same content, different shapes
+        if (!theTree.equals(balancedTree) || !balancedTree.equals((Object) theTree)) {
+            return "Failed at I0101";
+        }
+        if (theTree.hashCode() != balancedTree.hashCode()) {
+            return "Failed at I0102";
+        }
+        // copies and bulk loads recompute the hash
+        BinarySearchTree<String> copy = new BinarySearchTree<>(theTree);
+        BinarySearchTree<String> loaded = BinarySearchTree.fromSorted(theSet);
+        if (copy.hashCode() != theSet.hashCode() || loaded.hashCode() != theSet.hashCode()) {
+            return "Failed at I0103";
+        }
+        if (!copy.equals(loaded)) {
+            return "Failed at I0104";
+        }
+        // one element different (same count)
+        String first = theSet.first();
+        copy.remove(first);
+        copy.insert("not a number");
+        if (copy.equals(theTree) || theTree.equals(copy)) {
+            return "Failed at I0105";
+        }
+        // trees work as hash map keys
+        var map = new HashMap<BinarySearchTree<String>, String>();
+        map.put(theTree, "original");
+        if (!"original".equals(map.get(loaded))) {
+            return "Failed at I0106";
+        }
+        theTree.clear();
+        if (theTree.hashCode() != 0 || !theTree.equals(new BinarySearchTree<String>())) {
+            return "Failed at I0107";
+        }
+        BinarySearchTree<Integer> small = BinarySearchTree.fromSorted(List.of(1, 2, 3));
+        small.insertAll(List.of(3, 4, 5));
+        if (small.hashCode() != new TreeSet<>(List.of(1, 2, 3, 4, 5)).hashCode()) {
+            return "Failed at I0108";
+        }
+        return "";
+    }
+
+    public String getTestName() {
+        return "Equals and HashCode Test";
+    }
+}
@@ -0,0 +1,422 @@
+/*
+ * (c) David Gerstl, 2021. all rights reserved. For use
+ * in my CSC programming classes
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A read-only snapshot of a BinarySearchTree, made by
+ * BinarySearchTree.freeze(). The keys are stored in one array in Eytzinger
+ * (breadth-first) order: the root is at index 1 and the children of index k
+ * are at 2k and 2k+1, so there are no node objects or pointers at all. A
+ * search touches the top levels of the array, which stay in cache, and the
+ * next index is computed from a comparison instead of branched on.
+ *
+ * Integer and Long keys in their natural order are kept unboxed in an
+ * int[] or long[]. Other keys are compared with the tree's comparator.
+ *
+ * search, rank, select and countInRange are O(log n): the size of the
+ * subtree below any slot follows from its index, so no sizes are stored.
+ * The index arithmetic is in ints, so an index holds at most MAX_KEYS
+ * (2^30 - 1) keys.
+ *
+ * @author gerstl
+ * @param <T>
+ */
+public final class FrozenBinarySearchTree<T> implements Iterable<T> {
+
+    // the most keys: then 2k + 1 fits in an int for every slot k
+    public static final int MAX_KEYS = (1 << 30) - 1;
+
+    // exactly one of these holds the keys; index 0 is unused
+    private final Object[] objects;
+    private final int[] ints;
+    private final long[] longs;
+    private final int n;
+    // the order of the keys, null for their natural order
+    private final Comparator<? super T> comparator;
+
+    /**
+     * @param sorted the keys in strictly ascending order
+     * @param comparator the order they are in, null for natural ordering
+     * @throws IllegalArgumentException if there are more than MAX_KEYS keys
+     */
+    FrozenBinarySearchTree(Object[] sorted, Comparator<? super T> comparator) {
+        if (sorted.length > MAX_KEYS) {
+            throw new IllegalArgumentException("cannot freeze " + sorted.length + " keys; the most is " + MAX_KEYS);
+        }
+        n = sorted.length;
+        this.comparator = comparator;
+        boolean allInts = n > 0 && null == comparator;
+        boolean allLongs = n > 0 && null == comparator;
+        for (Object key : sorted) {
+            allInts &= key instanceof Integer;
+            allLongs &= key instanceof Long;
+        }
+        ints = allInts ? new int[n + 1] : null;
+        longs = allLongs ? new long[n + 1] : null;
+        objects = (allInts || allLongs) ? null : new Object[n + 1];
+        // an in-order walk of the implicit tree visits the slots in key order
+        int k = firstSlot();
+        for (Object key : sorted) {
+            if (allInts) {
+                ints[k] = (Integer) key;
+            } else if (allLongs) {
+                longs[k] = (Long) key;
+            } else {
+                objects[k] = key;
+            }
+            k = nextSlot(k);
+        }
+    }
+
+    /**
+     * @return the number of keys
+     */
+    public int numberOfNodes() {
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    /**
+     * @param findMe the key to look for
+     * @return true iff the key is in the index
+     */
+    public boolean search(T findMe) {
+        int k = lowerBound(findMe, false);
+        return k != 0 && compareAt(k, findMe) == 0;
+    }
+
+    /**
+     * The number of keys less than value
+     *
+     * @param value the value to rank
+     * @return how many keys are smaller
+     */
+    public int rank(T value) {
+        return rankOf(lowerBound(value, false));
+    }
+
+    /**
+     * The k-th smallest key (0 based)
+     *
+     * @param k the rank of the key wanted
+     * @return the key
+     * @throws IndexOutOfBoundsException if k is not in [0, numberOfNodes())
+     */
+    public T select(int k) {
+        if (k < 0 || k >= n) {
+            throw new IndexOutOfBoundsException("select(" + k + ") on " + n + " keys");
+        }
+        int slot = 1;
+        while (true) {
+            int leftSize = subtreeSize(2 * slot);
+            if (k < leftSize) {
+                slot = 2 * slot;
+            } else if (k == leftSize) {
+                return keyAt(slot);
+            } else {
+                k -= leftSize + 1;
+                slot = 2 * slot + 1;
+            }
+        }
+    }
+
+    /**
+     * The number of keys in [lo, hi]
+     *
+     * @param lo the lowest key counted
+     * @param hi the highest key counted
+     * @return the count, 0 if lo &gt; hi
+     */
+    public int countInRange(T lo, T hi) {
+        if (compare(lo, hi) > 0) {
+            return 0;
+        }
+        return rankOf(lowerBound(hi, true)) - rankOf(lowerBound(lo, false));
+    }
+
+    /**
+     * @return the smallest key
+     * @throws NoSuchElementException if the index is empty
+     */
+    public T first() {
+        if (n == 0) {
+            throw new NoSuchElementException();
+        }
+        return keyAt(firstSlot());
+    }
+
+    /**
+     * @return the largest key
+     * @throws NoSuchElementException if the index is empty
+     */
+    public T last() {
+        if (n == 0) {
+            throw new NoSuchElementException();
+        }
+        return keyAt(lastSlot());
+    }
+
+    /**
+     * @return the keys in ascending order
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new SlotIterator(n == 0 ? 0 : firstSlot(), 0, true);
+    }
+
+    /**
+     * The keys in [from, to) in ascending order. A null bound is open.
+     *
+     * @param from the first key included (null: from the smallest)
+     * @param to the first key excluded (null: to the end)
+     * @return an iterator over the range
+     */
+    public Iterator<T> iterator(T from, T to) {
+        int start = (null == from) ? (n == 0 ? 0 : firstSlot()) : lowerBound(from, false);
+        int fence = (null == to) ? 0 : lowerBound(to, false);
+        if (null != from && null != to && compare(from, to) >= 0) {
+            start = 0;
+        }
+        return new SlotIterator(start, fence, true);
+    }
+
+    /**
+     * @return the keys in descending order
+     */
+    public Iterator<T> descendingIterator() {
+        return new SlotIterator(n == 0 ? 0 : lastSlot(), 0, false);
+    }
+
+    /**
+     * @return the order of the keys, null for their natural ordering
+     */
+    public Comparator<? super T> comparator() {
+        return comparator;
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(new KeySpliterator(), false);
+    }
+
+    /**
+     * The keys in order. It reports the tree's comparator, so that a stream
+     * over a tree frozen with one does not take the keys to be in natural
+     * order (and skip a sorted()).
+     */
+    private class KeySpliterator extends Spliterators.AbstractSpliterator<T> {
+
+        private final Iterator<T> keys = iterator();
+
+        KeySpliterator() {
+            super(n, Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.ORDERED | Spliterator.SIZED
+                    | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (!keys.hasNext()) {
+                return false;
+            }
+            action.accept(keys.next());
+            return true;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            // null for natural ordering, as the Spliterator contract wants
+            return comparator;
+        }
+    }
+
+    /**
+     * The slot of the first key &gt;= value (&gt; value if strict), or 0 if
+     * there is none. The loop does the same work at every level whatever the
+     * comparison says: the child index is 2k plus the comparison as a 0 or 1,
+     * which the JIT compiles to a conditional set rather than a branch. At
+     * the end, k has walked off the bottom of the tree; every 1 bit at the
+     * bottom of k is a step to the right, and the slot wanted is where the
+     * last step to the left was taken, so shifting off the trailing ones and
+     * one more bit gives it.
+     */
+    private int lowerBound(T value, boolean strict) {
+        int k = 1;
+        if (null != ints) {
+            int key = (Integer) value;
+            if (strict) {
+                while (k <= n) {
+                    k = 2 * k + (ints[k] <= key ? 1 : 0);
+                }
+            } else {
+                while (k <= n) {
+                    k = 2 * k + (ints[k] < key ? 1 : 0);
+                }
+            }
+        } else if (null != longs) {
+            long key = (Long) value;
+            if (strict) {
+                while (k <= n) {
+                    k = 2 * k + (longs[k] <= key ? 1 : 0);
+                }
+            } else {
+                while (k <= n) {
+                    k = 2 * k + (longs[k] < key ? 1 : 0);
+                }
+            }
+        } else {
+            int limit = strict ? 1 : 0;
+            while (k <= n) {
+                k = 2 * k + (compare(objects[k], value) < limit ? 1 : 0);
+            }
+        }
+        return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+
+    private int compareAt(int k, T value) {
+        if (null != ints) {
+            return Integer.compare(ints[k], (Integer) value);
+        }
+        if (null != longs) {
+            return Long.compare(longs[k], (Long) value);
+        }
+        return compare(objects[k], value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Object a, Object b) {
+        if (null == comparator) {
+            return ((Comparable<Object>) a).compareTo(b);
+        }
+        return comparator.compare((T) a, (T) b);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T keyAt(int k) {
+        if (null != ints) {
+            return (T) Integer.valueOf(ints[k]);
+        }
+        if (null != longs) {
+            return (T) Long.valueOf(longs[k]);
+        }
+        return (T) objects[k];
+    }
+
+    // the leftmost slot
+    private int firstSlot() {
+        int k = 1;
+        while (2 * k <= n) {
+            k = 2 * k;
+        }
+        return k;
+    }
+
+    // the rightmost slot
+    private int lastSlot() {
+        int k = 1;
+        while (2 * k + 1 <= n) {
+            k = 2 * k + 1;
+        }
+        return k;
+    }
+
+    // in-order successor of slot k, 0 after the last
+    private int nextSlot(int k) {
+        if (2 * k + 1 <= n) {
+            k = 2 * k + 1;
+            while (2 * k <= n) {
+                k = 2 * k;
+            }
+            return k;
+        }
+        // climb back up past every step to the right, then one more
+        return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+
+    // in-order predecessor of slot k, 0 before the first
+    private int previousSlot(int k) {
+        if (2 * k <= n) {
+            k = 2 * k;
+            while (2 * k + 1 <= n) {
+                k = 2 * k + 1;
+            }
+            return k;
+        }
+        return k >>> (Integer.numberOfTrailingZeros(k) + 1);
+    }
+
+    // how many slots hang below (and include) slot k, in O(1). Every level
+    // of the subtree but the bottom one of the whole tree is full, and the
+    // bottom one is filled from the left: the subtree's share of it is the
+    // slots k << h to ((k + 1) << h) - 1, h levels down, that are <= n
+    private int subtreeSize(int k) {
+        if (k > n) {
+            return 0;
+        }
+        int h = Integer.numberOfLeadingZeros(k) - Integer.numberOfLeadingZeros(n);
+        long bottom = Math.max(0, Math.min(1L << h, n - ((long) k << h) + 1));
+        return (int) ((1L << h) - 1 + bottom);
+    }
+
+    // the number of keys before slot k (n for slot 0, i.e. past the end);
+    // one climb, each step O(1)
+    private int rankOf(int k) {
+        if (k == 0) {
+            return n;
+        }
+        int rv = subtreeSize(2 * k);
+        // walk up: each time we came from a right child, the parent and its
+        // left subtree come first
+        while (k > 1) {
+            if ((k & 1) == 1) {
+                rv += 1 + subtreeSize(k - 1);
+            }
+            k >>>= 1;
+        }
+        return rv;
+    }
+
+    /**
+     * Steps through slots in key order from start until the fence slot (0
+     * means to the end)
+     */
+    private class SlotIterator implements Iterator<T> {
+
+        private int k;
+        private final int fence;
+        private final boolean ascending;
+
+        SlotIterator(int start, int fence, boolean ascending) {
+            this.k = start;
+            this.fence = fence;
+            this.ascending = ascending;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return k != 0 && k != fence;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T rv = keyAt(k);
+            k = ascending ? nextSlot(k) : previousSlot(k);
+            return rv;
+        }
+    }
+}
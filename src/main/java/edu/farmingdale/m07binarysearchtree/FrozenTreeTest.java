@@ -0,0 +1,134 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Checks freeze(): lookups, ranks, selects, range counts and every iterator
+ * of the frozen index against a TreeSet, for int, long and String keys and
+ * for every size up to a few complete levels (so every shape of the last
+ * level is covered).
+ *
+ * @author gerstl
+ */
+public class FrozenTreeTest implements RunTest {
+
+    public String runTest() {
+        var random = new Random();
+        for (int size = 0; size < 70; ++size) {
+            TreeSet<Integer> theSet = new TreeSet<>();
+            BinarySearchTree<Integer> theTree = new BinarySearchTree<>(BinarySearchTree.Balance.AVL);
+            while (theSet.size() < size) {
+                int aNumber = 2 * random.nextInt(200);
+                theSet.add(aNumber);
+                theTree.insert(aNumber);
+            }
+            String problem = check(theTree.freeze(), theSet, -3, 403, "M0100");
+            if (!problem.isEmpty()) {
+                return problem;
+            }
+        }
+
+        TreeSet<Long> longSet = new TreeSet<>();
+        BinarySearchTree<Long> longTree = new BinarySearchTree<>();
+        TreeSet<String> stringSet = new TreeSet<>();
+        BinarySearchTree<String> stringTree = new BinarySearchTree<>();
+        for (int i = 0; i < 20_000; ++i) {
+            long aNumber = random.nextInt(100_000) * 1_000_000_007L;
+            longSet.add(aNumber);
+            longTree.insert(aNumber);
+            String sNumber = Integer.toString(random.nextInt(100_000));
+            stringSet.add(sNumber);
+            stringTree.insert(sNumber);
+        }
+        FrozenBinarySearchTree<Long> frozenLongs = longTree.freeze();
+        for (int i = 0; i < 2_000; ++i) {
+            long aNumber = random.nextInt(100_000) * 1_000_000_007L + (i % 2);
+            if (frozenLongs.search(aNumber) != longSet.contains(aNumber)
+                    || frozenLongs.rank(aNumber) != longSet.headSet(aNumber).size()) {
+                return "Failed at M0101";
+            }
+        }
+        if (!sameElements(frozenLongs.iterator(), longSet.iterator())) {
+            return "Failed at M0102";
+        }
+        FrozenBinarySearchTree<String> frozenStrings = stringTree.freeze();
+        for (int i = 0; i < 2_000; ++i) {
+            String from = Integer.toString(random.nextInt(100_000));
+            String to = Integer.toString(random.nextInt(100_000));
+            if (frozenStrings.search(from) != stringSet.contains(from)) {
+                return "Failed at M0103";
+            }
+            if (from.compareTo(to) < 0
+                    && !sameElements(frozenStrings.iterator(from, to), stringSet.subSet(from, to).iterator())) {
+                return "Failed at M0104";
+            }
+        }
+        if (!frozenStrings.stream().collect(Collectors.toList()).equals(new ArrayList<>(stringSet))) {
+            return "Failed at M0105";
+        }
+
+        // a snapshot: later changes to the tree don't show
+        int before = frozenStrings.numberOfNodes();
+        stringTree.insert("not a number");
+        if (frozenStrings.numberOfNodes() != before || frozenStrings.search("not a number")) {
+            return "Failed at M0106";
+        }
+        return "";
+    }
+
+    private static String check(FrozenBinarySearchTree<Integer> frozen, TreeSet<Integer> theSet,
+            int lo, int hi, String code) {
+        if (frozen.numberOfNodes() != theSet.size() || frozen.isEmpty() != theSet.isEmpty()) {
+            return "Failed at " + code + " (size)";
+        }
+        for (int value = lo; value <= hi; ++value) {
+            if (frozen.search(value) != theSet.contains(value)
+                    || frozen.rank(value) != theSet.headSet(value).size()) {
+                return "Failed at " + code + " (search " + value + ")";
+            }
+            int upper = value + 17;
+            if (frozen.countInRange(value, upper) != theSet.subSet(value, true, upper, true).size()
+                    || !sameElements(frozen.iterator(value, upper), theSet.subSet(value, upper).iterator())) {
+                return "Failed at " + code + " (range " + value + ")";
+            }
+        }
+        List<Integer> expected = new ArrayList<>(theSet);
+        for (int k = 0; k < expected.size(); ++k) {
+            if (!frozen.select(k).equals(expected.get(k))) {
+                return "Failed at " + code + " (select " + k + ")";
+            }
+        }
+        if (!sameElements(frozen.iterator(), theSet.iterator())
+                || !sameElements(frozen.descendingIterator(), theSet.descendingIterator())
+                || !sameElements(frozen.iterator(null, null), theSet.iterator())) {
+            return "Failed at " + code + " (iterators)";
+        }
+        if (!theSet.isEmpty() && (!frozen.first().equals(theSet.first()) || !frozen.last().equals(theSet.last()))) {
+            return "Failed at " + code + " (first/last)";
+        }
+        return "";
+    }
+
+    private static <T> boolean sameElements(Iterator<T> a, Iterator<T> b) {
+        while (a.hasNext() && b.hasNext()) {
+            if (!a.next().equals(b.next())) {
+                return false;
+            }
+        }
+        return !a.hasNext() && !b.hasNext();
+    }
+
+    public String getTestName() {
+        return "Frozen Tree Test";
+    }
+}
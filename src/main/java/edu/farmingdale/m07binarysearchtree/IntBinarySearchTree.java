@@ -0,0 +1,473 @@
+/*
+ * (c) David Gerstl, 2021. all rights reserved. For use
+ * in my CSC programming classes
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * A binary search tree of primitive ints. It has the core of
+ * BinarySearchTree&lt;Integer&gt;: search, insert, remove, the four
+ * traversals, iteration, equals/hashCode and toString (not rank and select),
+ * but stores the key in the node itself, so there is no Integer object per
+ * element and no compareTo call: a descent touches one object per level
+ * instead of two.
+ *
+ * @author gerstl
+ */
+public class IntBinarySearchTree implements Iterable<Integer> {
+
+    /**
+     * Node for the int tree. Static, so it carries no reference to the tree.
+     */
+    static final class IntNode {
+
+        int key;
+        // height of the subtree anchored here (a leaf is 0)
+        int height;
+        IntNode leftChild;
+        IntNode rightChild;
+        IntNode parent;
+
+        IntNode(int key, IntNode parent) {
+            this.key = key;
+            this.parent = parent;
+        }
+    }
+
+    private IntNode root;
+    private int count;
+    private final BinarySearchTree.Balance balance;
+
+    /**
+     * Default ctor. The tree is not balanced
+     */
+    public IntBinarySearchTree() {
+        this(BinarySearchTree.Balance.NONE);
+    }
+
+    /**
+     * Ctor choosing the balancing mode
+     *
+     * @param balance Balance.AVL to keep the tree height logarithmic, or
+     * Balance.NONE
+     * @throws IllegalArgumentException for Balance.SPLAY, which this tree
+     * does not implement
+     */
+    public IntBinarySearchTree(BinarySearchTree.Balance balance) {
+        if (balance == BinarySearchTree.Balance.SPLAY) {
+            throw new IllegalArgumentException("IntBinarySearchTree does not splay");
+        }
+        root = null;
+        count = 0;
+        this.balance = balance;
+    }
+
+    /**
+     * @return the count of nodes
+     */
+    public int numberOfNodes() {
+        return count;
+    }
+
+    /**
+     * @return the height of the tree (-1 if empty)
+     */
+    public int height() {
+        return (root == null) ? -1 : root.height;
+    }
+
+    /**
+     * @return true iff the tree is empty
+     */
+    public boolean isEmpty() {
+        return (root == null);
+    }
+
+    /**
+     * clears the entire tree
+     */
+    public void clear() {
+        root = null;
+        count = 0;
+    }
+
+    /**
+     * Search for a key
+     *
+     * @param findMe the key to look for
+     * @return true iff the key is in the tree
+     */
+    public boolean search(int findMe) {
+        IntNode current = root;
+        while (current != null && current.key != findMe) {
+            current = (findMe < current.key) ? current.leftChild : current.rightChild;
+        }
+        return current != null;
+    }
+
+    /**
+     * Insert a key
+     *
+     * @param addMe the key to add
+     * @return true iff the key was not already in the tree
+     */
+    public boolean insert(int addMe) {
+        if (root == null) {
+            root = new IntNode(addMe, null);
+            count = 1;
+            return true;
+        }
+        IntNode traverseNode = root;
+        IntNode trail = traverseNode;
+        while (traverseNode != null) {
+            trail = traverseNode;
+            if (addMe == traverseNode.key) {
+                return false;
+            }
+            traverseNode = (addMe < traverseNode.key) ? traverseNode.leftChild : traverseNode.rightChild;
+        }
+        IntNode newNode = new IntNode(addMe, trail);
+        if (addMe < trail.key) {
+            trail.leftChild = newNode;
+        } else {
+            trail.rightChild = newNode;
+        }
+        ++count;
+        retrace(trail);
+        return true;
+    }
+
+    /**
+     * Remove a key
+     *
+     * @param removeMe the key to remove
+     * @return true iff the key was in the tree
+     */
+    public boolean remove(int removeMe) {
+        IntNode traverseNode = root;
+        while (traverseNode != null && traverseNode.key != removeMe) {
+            traverseNode = (removeMe < traverseNode.key) ? traverseNode.leftChild : traverseNode.rightChild;
+        }
+        if (traverseNode == null) {
+            return false;
+        }
+        if (traverseNode.leftChild != null && traverseNode.rightChild != null) {
+            // take the successor's key, then unlink the successor instead
+            IntNode successor = traverseNode.rightChild;
+            while (successor.leftChild != null) {
+                successor = successor.leftChild;
+            }
+            traverseNode.key = successor.key;
+            traverseNode = successor;
+        }
+        IntNode child = (traverseNode.leftChild != null) ? traverseNode.leftChild : traverseNode.rightChild;
+        IntNode trail = traverseNode.parent;
+        if (child != null) {
+            child.parent = trail;
+        }
+        replaceChild(trail, traverseNode, child);
+        --count;
+        retrace(trail);
+        return true;
+    }
+
+    /**
+     * In order traversal
+     *
+     * @param actionObject called with each key in ascending order
+     */
+    public void dfsInfix(IntConsumer actionObject) {
+        PrimitiveIterator.OfInt iter = iterator();
+        while (iter.hasNext()) {
+            actionObject.accept(iter.nextInt());
+        }
+    }
+
+    /**
+     * Prefix traversal, following parent links as BinaryTree does
+     *
+     * @param actionObject called with each key, parents before children
+     */
+    public void dfsPrefix(IntConsumer actionObject) {
+        IntNode node = root;
+        while (node != null) {
+            actionObject.accept(node.key);
+            if (node.leftChild != null) {
+                node = node.leftChild;
+            } else if (node.rightChild != null) {
+                node = node.rightChild;
+            } else {
+                // climb until we come up from a left child that has a right
+                // sibling; that sibling is next
+                while (node != root && (node != node.parent.leftChild || node.parent.rightChild == null)) {
+                    node = node.parent;
+                }
+                node = (node == root) ? null : node.parent.rightChild;
+            }
+        }
+    }
+
+    /**
+     * Postfix traversal, following parent links as BinaryTree does
+     *
+     * @param actionObject called with each key, children before parents
+     */
+    public void dfsPostfix(IntConsumer actionObject) {
+        IntNode node = (root == null) ? null : firstPostfix(root);
+        while (node != null) {
+            actionObject.accept(node.key);
+            if (node == root) {
+                node = null;
+            } else if (node == node.parent.leftChild && node.parent.rightChild != null) {
+                node = firstPostfix(node.parent.rightChild);
+            } else {
+                node = node.parent;
+            }
+        }
+    }
+
+    private static IntNode firstPostfix(IntNode node) {
+        while (true) {
+            if (node.leftChild != null) {
+                node = node.leftChild;
+            } else if (node.rightChild != null) {
+                node = node.rightChild;
+            } else {
+                return node;
+            }
+        }
+    }
+
+    /**
+     * Breadth-first traversal
+     *
+     * @param actionObject called with each key, level by level
+     */
+    public void bfs(IntConsumer actionObject) {
+        var queue = new ArrayDeque<IntNode>();
+        if (root != null) {
+            queue.add(root);
+        }
+        while (!queue.isEmpty()) {
+            IntNode node = queue.remove();
+            actionObject.accept(node.key);
+            if (node.leftChild != null) {
+                queue.add(node.leftChild);
+            }
+            if (node.rightChild != null) {
+                queue.add(node.rightChild);
+            }
+        }
+    }
+
+    /**
+     * Two int trees are equal if they hold the same keys, whatever their
+     * shape
+     *
+     * @param other another object
+     * @return true iff other is an IntBinarySearchTree with the same keys
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof IntBinarySearchTree) || ((IntBinarySearchTree) other).count != count) {
+            return false;
+        }
+        PrimitiveIterator.OfInt mine = iterator();
+        PrimitiveIterator.OfInt theirs = ((IntBinarySearchTree) other).iterator();
+        while (mine.hasNext()) {
+            if (mine.nextInt() != theirs.nextInt()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The sum of the keys, which is what a Set&lt;Integer&gt; (and a
+     * BinarySearchTree&lt;Integer&gt;) of the same keys reports. O(n).
+     */
+    @Override
+    public int hashCode() {
+        int rv = 0;
+        for (IntNode node = leftmost(root); node != null; node = successor(node)) {
+            rv += node.key;
+        }
+        return rv;
+    }
+
+    /**
+     * The same picture as BinaryTree.toString(): a right-first in order
+     * walk, each key indented by its depth
+     */
+    @Override
+    public String toString() {
+        var rv = new StringBuilder();
+        int indent = 0;
+        IntNode node = root;
+        while (node != null && node.rightChild != null) {
+            node = node.rightChild;
+            indent += 4;
+        }
+        while (node != null) {
+            for (int i = 0; i < indent + 5; ++i) {
+                rv.append(" ");
+            }
+            rv.append("(" + (indent / 4) + ")");
+            rv.append(node.key);
+            rv.append("\n");
+            // step to the in-order predecessor
+            if (node.leftChild != null) {
+                node = node.leftChild;
+                indent += 4;
+                while (node.rightChild != null) {
+                    node = node.rightChild;
+                    indent += 4;
+                }
+            } else {
+                while (node != root && node == node.parent.leftChild) {
+                    node = node.parent;
+                    indent -= 4;
+                }
+                node = (node == root) ? null : node.parent;
+                indent -= 4;
+            }
+        }
+        return rv.toString();
+    }
+
+    /**
+     * Iterator--returns the keys IN ORDER without boxing (use nextInt()).
+     * It follows parent links, so it needs no stack.
+     *
+     * @return an iterator that produces keys in order.
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+
+            private IntNode next = leftmost(root);
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                int rv = next.key;
+                next = successor(next);
+                return rv;
+            }
+        };
+    }
+
+    private static IntNode leftmost(IntNode node) {
+        if (node != null) {
+            while (node.leftChild != null) {
+                node = node.leftChild;
+            }
+        }
+        return node;
+    }
+
+    private static IntNode successor(IntNode node) {
+        if (node.rightChild != null) {
+            return leftmost(node.rightChild);
+        }
+        IntNode parent = node.parent;
+        while (parent != null && node == parent.rightChild) {
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
+
+    // heights are refreshed from the changed node up to the root; in AVL
+    // mode a node whose subtrees differ by two is rotated on the way
+
+    private void retrace(IntNode node) {
+        while (node != null) {
+            updateHeight(node);
+            if (balance == BinarySearchTree.Balance.AVL) {
+                node = rebalance(node);
+            }
+            node = node.parent;
+        }
+    }
+
+    private IntNode rebalance(IntNode node) {
+        int balanceFactor = nodeHeight(node.leftChild) - nodeHeight(node.rightChild);
+        if (balanceFactor > 1) {
+            if (nodeHeight(node.leftChild.leftChild) < nodeHeight(node.leftChild.rightChild)) {
+                rotateLeft(node.leftChild);
+            }
+            return rotateRight(node);
+        }
+        if (balanceFactor < -1) {
+            if (nodeHeight(node.rightChild.rightChild) < nodeHeight(node.rightChild.leftChild)) {
+                rotateRight(node.rightChild);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private IntNode rotateLeft(IntNode node) {
+        IntNode pivot = node.rightChild;
+        node.rightChild = pivot.leftChild;
+        if (pivot.leftChild != null) {
+            pivot.leftChild.parent = node;
+        }
+        pivot.parent = node.parent;
+        replaceChild(node.parent, node, pivot);
+        pivot.leftChild = node;
+        node.parent = pivot;
+        updateHeight(node);
+        updateHeight(pivot);
+        return pivot;
+    }
+
+    private IntNode rotateRight(IntNode node) {
+        IntNode pivot = node.leftChild;
+        node.leftChild = pivot.rightChild;
+        if (pivot.rightChild != null) {
+            pivot.rightChild.parent = node;
+        }
+        pivot.parent = node.parent;
+        replaceChild(node.parent, node, pivot);
+        pivot.rightChild = node;
+        node.parent = pivot;
+        updateHeight(node);
+        updateHeight(pivot);
+        return pivot;
+    }
+
+    private void replaceChild(IntNode parent, IntNode oldChild, IntNode newChild) {
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.leftChild == oldChild) {
+            parent.leftChild = newChild;
+        } else {
+            parent.rightChild = newChild;
+        }
+    }
+
+    private static void updateHeight(IntNode node) {
+        node.height = 1 + Math.max(nodeHeight(node.leftChild), nodeHeight(node.rightChild));
+    }
+
+    private static int nodeHeight(IntNode node) {
+        return (node == null) ? -1 : node.height;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The Integer half of LargeBinarySearchTreeTest, run against the primitive
+ * IntBinarySearchTree (in both balancing modes), and a check that
+ * Balance.SPLAY is refused. The traversals and toString are checked against
+ * a BinarySearchTree&lt;Integer&gt; given the same inserts, which builds the
+ * same shape.
+ *
+ * @author gerstl
+ */
+public class IntBinarySearchTreeTest implements RunTest {
+
+    public String runTest() {
+        for (var balance : BinarySearchTree.Balance.values()) {
+            if (balance == BinarySearchTree.Balance.SPLAY) {
+                // not implemented here, so it must be refused
+                try {
+                    new IntBinarySearchTree(balance);
+                    return "Failed at D0108";
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+            }
+            String result = runTest(new IntBinarySearchTree(balance), balance);
+            if (!result.isEmpty()) {
+                System.out.println("IntBinarySearchTree failed in mode " + balance);
+                return result;
+            }
+        }
+        return "";
+    }
+
+    private String runTest(IntBinarySearchTree theIntegerTree, BinarySearchTree.Balance balance) {
+        Set<Integer> theIntegerSet = new TreeSet<>();
+        final int TEST_SIZE = 100_000;
+        var random = new Random();
+        for (int i = 0; i < TEST_SIZE; ++i) {
+            int aNumber = random.nextInt(TEST_SIZE - 1) + 1;
+            if (theIntegerTree.insert(aNumber) != theIntegerSet.add(aNumber)) {
+                return "Failed at D0100";
+            }
+        }
+        if (theIntegerTree.numberOfNodes() != theIntegerSet.size()) {
+            return "Failed at D0101";
+        }
+        for (Integer element : theIntegerSet) {
+            if (theIntegerTree.search(-1 * element)) {
+                return "Failed at D0102";
+            }
+            if (!theIntegerTree.search(element)) {
+                return "Failed at D0103";
+            }
+        }
+        // remove about TEST_SIZE/5 elements
+        Iterator<Integer> integerIterator = theIntegerSet.iterator();
+        int count = 0;
+        while (integerIterator.hasNext()) {
+            Integer element = integerIterator.next();
+            if ((++count % 5) == 0) {
+                integerIterator.remove();
+                if (!theIntegerTree.remove(element)) {
+                    return "Failed at D0104";
+                }
+                if (theIntegerTree.remove(element)) {
+                    return "Failed at D0105";
+                }
+            }
+        }
+        // the tree iterator must produce exactly the set, in order
+        PrimitiveIterator.OfInt treeIterator = theIntegerTree.iterator();
+        for (Integer element : theIntegerSet) {
+            if (!treeIterator.hasNext() || treeIterator.nextInt() != element) {
+                return "Failed at D0106";
+            }
+        }
+        if (treeIterator.hasNext()) {
+            return "Failed at D0107";
+        }
+        if (theIntegerTree.hashCode() != theIntegerSet.hashCode()) {
+            return "Failed at D0109";
+        }
+        return compareShapes(balance, random);
+    }
+
+    // an int tree and a BinarySearchTree, fed alike, walk alike
+    private String compareShapes(BinarySearchTree.Balance balance, Random random) {
+        var intTree = new IntBinarySearchTree(balance);
+        var other = new IntBinarySearchTree(balance);
+        var tree = new BinarySearchTree<Integer>(balance);
+        for (int i = 0; i < 500; ++i) {
+            int value = random.nextInt(1000);
+            intTree.insert(value);
+            tree.insert(value);
+            if (random.nextInt(4) == 0) {
+                value = random.nextInt(1000);
+                intTree.remove(value);
+                tree.remove(value);
+            }
+        }
+        // BinaryTree's traversals take a raw Consumer
+        var expected = new ArrayList<Object>();
+        var actual = new ArrayList<Object>();
+        tree.dfsPrefix(expected::add);
+        intTree.dfsPrefix(actual::add);
+        if (!expected.equals(actual)) {
+            return "Failed at D0110";
+        }
+        expected.clear();
+        actual.clear();
+        tree.dfsPostfix(expected::add);
+        intTree.dfsPostfix(actual::add);
+        if (!expected.equals(actual)) {
+            return "Failed at D0111";
+        }
+        expected.clear();
+        actual.clear();
+        tree.bfs(expected::add);
+        intTree.bfs(actual::add);
+        if (!expected.equals(actual)) {
+            return "Failed at D0112";
+        }
+        if (!tree.toString().equals(intTree.toString())) {
+            return "Failed at D0113";
+        }
+        // the same keys inserted in order give another shape
+        intTree.dfsInfix(other::insert);
+        if (!intTree.equals(other) || intTree.hashCode() != other.hashCode()) {
+            return "Failed at D0114";
+        }
+        other.remove(other.iterator().nextInt());
+        if (intTree.equals(other)) {
+            return "Failed at D0115";
+        }
+        return "";
+    }
+
+    public String getTestName() {
+        return "Int Binary Search Tree Test";
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Checks the iterators in every balancing mode: removing through the
+ * in-order, descending and range iterators must leave the tree matching a
+ * TreeSet with the same removals, remove() must refuse to run twice or
+ * before next(), and a change made elsewhere must make the iterator fail
+ * fast.
+ *
+ * @author gerstl
+ */
+public class IteratorTest implements RunTest {
+
+    public String runTest() {
+        for (BinarySearchTree.Balance balance : BinarySearchTree.Balance.values()) {
+            String result = runTest(balance);
+            if (!result.isEmpty()) {
+                System.out.println("Iterator test failed in mode " + balance);
+                return result;
+            }
+        }
+        return "";
+    }
+
+    private String runTest(BinarySearchTree.Balance balance) {
+        var random = new Random();
+        BinarySearchTree<Integer> theTree = new BinarySearchTree<>(balance);
+        if (theTree.iterator().hasNext()) {
+            return "Failed at U0100";
+        }
+        TreeSet<Integer> theSet = new TreeSet<>();
+        for (int i = 0; i < 50_000; ++i) {
+            int aNumber = random.nextInt(200_000);
+            theTree.insert(aNumber);
+            theSet.add(aNumber);
+        }
+
+        // in order: drop about a third, in a single pass over both
+        Iterator<Integer> mine = theTree.iterator();
+        Iterator<Integer> theirs = theSet.iterator();
+        while (theirs.hasNext()) {
+            Integer expected = theirs.next();
+            if (!mine.hasNext() || !mine.next().equals(expected)) {
+                return "Failed at U0101";
+            }
+            if (random.nextInt(3) == 0) {
+                mine.remove();
+                theirs.remove();
+            }
+        }
+        if (mine.hasNext()) {
+            return "Failed at U0102";
+        }
+        try {
+            mine.next();
+            return "Failed at U0103";
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+        String bad = sameContent(theTree, theSet, "U0104");
+        if (null != bad) {
+            return bad;
+        }
+
+        // descending
+        mine = theTree.descendingIterator();
+        theirs = theSet.descendingIterator();
+        while (theirs.hasNext()) {
+            Integer expected = theirs.next();
+            if (!mine.next().equals(expected)) {
+                return "Failed at U0105";
+            }
+            if (expected % 5 == 0) {
+                mine.remove();
+                theirs.remove();
+            }
+        }
+        bad = sameContent(theTree, theSet, "U0106");
+        if (null != bad) {
+            return bad;
+        }
+
+        // a range, and a view of one, which removes through its iterator
+        mine = theTree.iterator(50_000, 150_000);
+        theirs = theSet.subSet(50_000, 150_000).iterator();
+        while (theirs.hasNext()) {
+            Integer expected = theirs.next();
+            if (!mine.next().equals(expected)) {
+                return "Failed at U0107";
+            }
+            if (expected % 2 == 0) {
+                mine.remove();
+                theirs.remove();
+            }
+        }
+        if (mine.hasNext()) {
+            return "Failed at U0108";
+        }
+        theTree.subSet(150_000, 180_000).removeIf(e -> e % 3 == 0);
+        theSet.subSet(150_000, 180_000).removeIf(e -> e % 3 == 0);
+        bad = sameContent(theTree, theSet, "U0109");
+        if (null != bad) {
+            return bad;
+        }
+        if (balance == BinarySearchTree.Balance.AVL
+                && theTree.height() > 1.44 * Math.log(theSet.size() + 2) / Math.log(2)) {
+            return "Failed at U0110";
+        }
+
+        // remove() only once per next(), and not before it
+        mine = theTree.iterator();
+        try {
+            mine.remove();
+            return "Failed at U0111";
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        mine.next();
+        mine.remove();
+        try {
+            mine.remove();
+            return "Failed at U0111";
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        theSet.pollFirst();
+
+        // a change made elsewhere makes the iterator fail fast; a read
+        // (which splays in SPLAY mode) does not
+        mine = theTree.iterator();
+        mine.next();
+        theTree.search(theSet.last());
+        mine.next();
+        theTree.insert(-1);
+        try {
+            mine.next();
+            return "Failed at U0112";
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+        theSet.add(-1);
+        return (null == sameContent(theTree, theSet, "U0113")) ? "" : "Failed at U0113";
+    }
+
+    private static String sameContent(BinarySearchTree<Integer> theTree, TreeSet<Integer> theSet, String code) {
+        if (theTree.numberOfNodes() != theSet.size() || theTree.hashCode() != theSet.hashCode()) {
+            return "Failed at " + code;
+        }
+        Iterator<Integer> setIterator = theSet.iterator();
+        for (Integer element : theTree) {
+            if (!element.equals(setIterator.next())) {
+                return "Failed at " + code;
+            }
+        }
+        return null;
+    }
+
+    public String getTestName() {
+        return "Iterator Test";
+    }
+}
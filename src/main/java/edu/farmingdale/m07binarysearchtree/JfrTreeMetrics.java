@@ -0,0 +1,83 @@
+/*
+ * (c) David Gerstl, 2021. all rights reserved. For use
+ * in my CSC programming classes
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A TreeMetrics sink that emits a Java Flight Recorder event per operation.
+ * When no recording has the event enabled, no event is made, so an idle
+ * sink costs a check and no allocation per operation. Enable it
+ * in a recording (e.g. -XX:StartFlightRecording with a settings file that
+ * turns on edu.farmingdale.m07binarysearchtree.TreeOperation, or
+ * Recording.enable() from code).
+ *
+ * @author gerstl
+ */
+public class JfrTreeMetrics implements TreeMetrics {
+
+    // never committed; isEnabled() reads the state of the event type, so
+    // one instance can answer for every operation
+    private static final TreeOperationEvent ENABLED_PROBE = new TreeOperationEvent();
+
+    @Override
+    public void record(Operation operation, boolean hit, int comparisons, int pathLength, long nanos,
+            int height, int nodes) {
+        if (!ENABLED_PROBE.isEnabled()) {
+            return;
+        }
+        TreeOperationEvent event = new TreeOperationEvent();
+        event.operation = operation.name();
+        event.hit = hit;
+        event.comparisons = comparisons;
+        event.pathLength = pathLength;
+        event.latency = nanos;
+        event.height = height;
+        event.nodes = nodes;
+        if (event.shouldCommit()) {
+            event.commit();
+        }
+    }
+
+    /**
+     * The JFR event. The latency is a field rather than the event duration,
+     * because the operation has finished by the time it is reported.
+     */
+    @Name("edu.farmingdale.m07binarysearchtree.TreeOperation")
+    @Label("Tree Operation")
+    @Category("Binary Search Tree")
+    @Description("One insert, search or remove on a BinarySearchTree")
+    @StackTrace(false)
+    static class TreeOperationEvent extends Event {
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Hit")
+        boolean hit;
+
+        @Label("Comparisons")
+        int comparisons;
+
+        @Label("Path Length")
+        int pathLength;
+
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+
+        @Label("Height")
+        int height;
+
+        @Label("Nodes")
+        int nodes;
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Checks the journal: a snapshot plus the replayed journal must give back
+ * the tree (also after clone() overwrites it), set algebra must journal
+ * only what it changed, a torn last record must be dropped (and cut off), a
+ * checkpoint must leave an empty journal, and a dead flusher must fail sync()
+ * rather than hang it. The "crash" is simply dropping
+ * the tree after sync() and recovering from the files.
+ *
+ * @author gerstl
+ */
+public class JournalTest implements RunTest {
+
+    public String runTest() {
+        Path dir = null;
+        try {
+            dir = Files.createTempDirectory("journal");
+            return runTest(dir);
+        } catch (IOException e) {
+            return "Failed at O0100 (" + e + ")";
+        } finally {
+            if (null != dir) {
+                try (var files = Files.list(dir)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        Files.delete(file);
+                    }
+                    Files.delete(dir);
+                } catch (IOException e) {
+                    // leave it for the OS
+                }
+            }
+        }
+    }
+
+    private String runTest(Path dir) throws IOException {
+        var random = new Random();
+        Path snapshot = dir.resolve("tree.bst");
+        Path log = dir.resolve("tree.journal");
+        TreeSet<Integer> theSet = new TreeSet<>();
+        BinarySearchTree<Integer> theTree = new BinarySearchTree<>(BinarySearchTree.Balance.AVL);
+        for (int i = 0; i < 10_000; ++i) {
+            int aNumber = random.nextInt(20_000);
+            theTree.insert(aNumber);
+            theSet.add(aNumber);
+        }
+        theTree.save(snapshot, KeyCodec.INTEGER);
+
+        // changes after the snapshot go only to the journal
+        TreeJournal<Integer> journal = TreeJournal.open(log, KeyCodec.INTEGER);
+        theTree.setJournal(journal);
+        for (int i = 0; i < 50_000; ++i) {
+            int aNumber = random.nextInt(20_000);
+            if (random.nextBoolean()) {
+                theTree.insert(aNumber);
+                theSet.add(aNumber);
+            } else {
+                theTree.remove(aNumber);
+                theSet.remove(aNumber);
+            }
+        }
+        // bulk changes are journaled too
+        theTree.insertAll(List.of(-1, -2, -3));
+        theSet.addAll(List.of(-1, -2, -3));
+        BinarySearchTree<Integer> evens = new BinarySearchTree<>();
+        for (int i = 0; i < 20_000; i += 2) {
+            evens.insert(i);
+        }
+        theTree.difference(evens);
+        theSet.removeIf(e -> e >= 0 && e % 2 == 0);
+        journal.sync();
+
+        BinarySearchTree<Integer> recovered = BinarySearchTree.load(snapshot, KeyCodec.INTEGER, BinarySearchTree.Balance.AVL);
+        TreeJournal.replay(log, KeyCodec.INTEGER, recovered);
+        if (!recovered.equals(theTree) || recovered.hashCode() != theSet.hashCode()) {
+            return "Failed at O0101";
+        }
+
+        // so is overwriting the whole tree with clone()
+        BinarySearchTree<Integer> replacement = new BinarySearchTree<>(BinarySearchTree.Balance.AVL);
+        for (int i = 0; i < 1_000; ++i) {
+            replacement.insert(random.nextInt(20_000));
+        }
+        theTree.clone(replacement, x -> x);
+        theTree.insert(-4);
+        theSet.clear();
+        replacement.forEach(theSet::add);
+        theSet.add(-4);
+        journal.sync();
+
+        recovered = BinarySearchTree.load(snapshot, KeyCodec.INTEGER, BinarySearchTree.Balance.AVL);
+        TreeJournal.replay(log, KeyCodec.INTEGER, recovered);
+        if (!recovered.equals(theTree) || recovered.hashCode() != theSet.hashCode()) {
+            return "Failed at O0107";
+        }
+
+        // a torn record at the end (a crash mid-write) is dropped
+        theTree.insert(123_456);
+        journal.close();
+        theTree.setJournal(null);
+        long goodLength = Files.size(log);
+        Files.write(log, new byte[]{TreeJournal.INSERT, 0, 0, 0, 4, 0, 1}, StandardOpenOption.APPEND);
+        recovered = BinarySearchTree.load(snapshot, KeyCodec.INTEGER, BinarySearchTree.Balance.AVL);
+        TreeJournal.replay(log, KeyCodec.INTEGER, recovered);
+        if (!recovered.equals(theTree) || Files.size(log) != goodLength) {
+            return "Failed at O0102";
+        }
+        // so is a corrupted one
+        byte[] bytes = Files.readAllBytes(log);
+        bytes[bytes.length - 6] ^= 0x55;
+        Files.write(log, bytes);
+        recovered = BinarySearchTree.load(snapshot, KeyCodec.INTEGER, BinarySearchTree.Balance.AVL);
+        TreeJournal.replay(log, KeyCodec.INTEGER, recovered);
+        if (recovered.search(123_456) || recovered.numberOfNodes() != theTree.numberOfNodes() - 1) {
+            return "Failed at O0103";
+        }
+
+        // checkpoint: snapshot the tree and start the journal over
+        journal = TreeJournal.open(log, KeyCodec.INTEGER);
+        recovered.setJournal(journal);
+        recovered.insert(123_456);
+        journal.checkpoint(recovered, snapshot);
+        if (Files.size(log) != 0) {
+            return "Failed at O0104";
+        }
+        recovered.clear();
+        recovered.insert(7);
+        journal.close();
+        BinarySearchTree<Integer> again = BinarySearchTree.load(snapshot, KeyCodec.INTEGER, BinarySearchTree.Balance.AVL);
+        if (!again.equals(theTree)) {
+            return "Failed at O0105";
+        }
+        if (TreeJournal.replay(log, KeyCodec.INTEGER, again) != 2 || again.numberOfNodes() != 1 || !again.search(7)) {
+            return "Failed at O0106";
+        }
+        return setAlgebraTest(dir);
+    }
+
+    /**
+     * Set algebra and split must journal one record per element they
+     * actually add or remove, not per element of the argument or of the
+     * tree. The trees are big enough for the parallel paths.
+     */
+    private String setAlgebraTest(Path dir) throws IOException {
+        Path snapshot = dir.resolve("algebra.bst");
+        Path log = dir.resolve("algebra.journal");
+        BinarySearchTree<Integer> theTree = new BinarySearchTree<>(BinarySearchTree.Balance.AVL);
+        for (int i = 0; i < 30_000; ++i) {
+            theTree.insert(i);
+        }
+        theTree.save(snapshot, KeyCodec.INTEGER);
+        TreeJournal<Integer> journal = TreeJournal.open(log, KeyCodec.INTEGER);
+        theTree.setJournal(journal);
+        BinarySearchTree<Integer> upper = new BinarySearchTree<>(BinarySearchTree.Balance.AVL);
+        BinarySearchTree<Integer> threes = new BinarySearchTree<>(BinarySearchTree.Balance.AVL);
+        BinarySearchTree<Integer> low = new BinarySearchTree<>(BinarySearchTree.Balance.AVL);
+        for (int i = 20_000; i < 40_000; ++i) {
+            upper.insert(i);
+        }
+        for (int i = 0; i < 60_000; i += 3) {
+            threes.insert(i);
+        }
+        for (int i = -5_000; i < 35_000; ++i) {
+            low.insert(i);
+        }
+        long changes = 0;
+        int before = theTree.numberOfNodes();
+        theTree.union(upper);
+        changes += theTree.numberOfNodes() - before;
+        before = theTree.numberOfNodes();
+        theTree.difference(threes);
+        changes += before - theTree.numberOfNodes();
+        before = theTree.numberOfNodes();
+        theTree.intersection(low);
+        changes += before - theTree.numberOfNodes();
+        before = theTree.numberOfNodes();
+        theTree.split(30_000);
+        changes += before - theTree.numberOfNodes();
+        journal.close();
+        theTree.setJournal(null);
+
+        BinarySearchTree<Integer> recovered = BinarySearchTree.load(snapshot, KeyCodec.INTEGER, BinarySearchTree.Balance.AVL);
+        long records = TreeJournal.replay(log, KeyCodec.INTEGER, recovered);
+        if (!recovered.equals(theTree)) {
+            return "Failed at O0108";
+        }
+        if (records != changes) {
+            System.out.println(records + " journal records for " + changes + " changes");
+            return "Failed at O0109";
+        }
+        return interruptTest(dir);
+    }
+
+    /**
+     * Interrupting the flusher must be reported like a write error: the
+     * next sync() throws instead of waiting forever. The sync() runs on its
+     * own thread so a hang fails the test rather than the run.
+     */
+    private String interruptTest(Path dir) throws IOException {
+        TreeJournal<Integer> journal = TreeJournal.open(dir.resolve("interrupt.journal"), KeyCodec.INTEGER);
+        BinarySearchTree<Integer> theTree = new BinarySearchTree<>();
+        theTree.setJournal(journal);
+        try {
+            journal.flusher().interrupt();
+            journal.flusher().join(5_000);
+            theTree.insert(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Failed at O0110 (" + e + ")";
+        } catch (RuntimeException e) {
+            // the failure was seen already
+        }
+        theTree.setJournal(null);
+        FutureTask<Void> sync = new FutureTask<>(() -> {
+            journal.close();
+            return null;
+        });
+        Thread syncer = new Thread(sync, "journal-test-sync");
+        syncer.setDaemon(true);
+        syncer.start();
+        try {
+            sync.get(5, TimeUnit.SECONDS);
+            return "Failed at O0110";
+        } catch (ExecutionException e) {
+            if (!(e.getCause() instanceof IOException)) {
+                return "Failed at O0111 (" + e.getCause() + ")";
+            }
+        } catch (TimeoutException e) {
+            return "Failed at O0112";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Failed at O0110 (" + e + ")";
+        }
+        return "";
+    }
+
+    public String getTestName() {
+        return "Journal Test";
+    }
+}
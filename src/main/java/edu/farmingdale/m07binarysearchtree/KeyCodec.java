@@ -0,0 +1,107 @@
+/*
+ * (c) David Gerstl, 2021. all rights reserved. For use
+ * in my CSC programming classes
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * How the keys of a tree file are written and read back (see
+ * MappedBinarySearchTree). A codec either has a fixed width, in which case
+ * key i is found by arithmetic, or a variable one, in which case the file
+ * carries a table of offsets.
+ *
+ * @author gerstl
+ * @param <T> the key type
+ */
+public interface KeyCodec<T> {
+
+    /**
+     * Stored in the file header so a file is never read with the wrong codec
+     *
+     * @return a number unique to this codec
+     */
+    int id();
+
+    /**
+     * @return the number of bytes per key, or -1 if keys vary in length
+     */
+    int width();
+
+    /**
+     * Append one key
+     *
+     * @param key the key to write
+     * @param out where to write it
+     * @throws IOException if the write fails
+     */
+    void write(T key, DataOutput out) throws IOException;
+
+    /**
+     * Decode one key. The buffer's position is not used or changed.
+     *
+     * @param in the mapped file
+     * @param offset where the key starts
+     * @param length how many bytes it takes
+     * @return the key
+     */
+    T read(ByteBuffer in, int offset, int length);
+
+    /**
+     * Strings as UTF-8 bytes
+     */
+    KeyCodec<String> STRING = new KeyCodec<>() {
+        @Override
+        public int id() {
+            return 1;
+        }
+
+        @Override
+        public int width() {
+            return -1;
+        }
+
+        @Override
+        public void write(String key, DataOutput out) throws IOException {
+            out.write(key.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String read(ByteBuffer in, int offset, int length) {
+            byte[] bytes = new byte[length];
+            ByteBuffer view = in.duplicate();
+            view.position(offset);
+            view.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    /**
+     * Integers as 4 big-endian bytes
+     */
+    KeyCodec<Integer> INTEGER = new KeyCodec<>() {
+        @Override
+        public int id() {
+            return 2;
+        }
+
+        @Override
+        public int width() {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void write(Integer key, DataOutput out) throws IOException {
+            out.writeInt(key);
+        }
+
+        @Override
+        public Integer read(ByteBuffer in, int offset, int length) {
+            return in.getInt(offset);
+        }
+    };
+}
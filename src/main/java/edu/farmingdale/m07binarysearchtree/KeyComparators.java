@@ -0,0 +1,53 @@
+/*
+ * (c) David Gerstl, 2021. all rights reserved. For use
+ * in my CSC programming classes
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.Comparator;
+
+/**
+ * Comparators for BinarySearchTree keys that are cheaper than, or ordered
+ * differently from, the keys' natural ordering. Pass one to the tree's
+ * constructor; no wrapper objects are needed around the keys. For a
+ * reversed order, Comparator.reverseOrder() is all that is needed.
+ *
+ * @author gerstl
+ */
+public final class KeyComparators {
+
+    private KeyComparators() {
+    }
+
+    private static final Comparator<String> NUMERIC_STRINGS = (a, b) -> {
+        int length = a.length();
+        if (length != b.length()) {
+            return length - b.length();
+        }
+        for (int i = 0; i < length; ++i) {
+            int difference = a.charAt(i) - b.charAt(i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return 0;
+    };
+
+    /**
+     * Orders strings of ASCII digits by their numeric value: a shorter
+     * string is smaller, and strings of the same length compare byte by
+     * byte. For zero padded keys of a fixed width (like the ones in
+     * LargeBinarySearchTreeTest) every key has the same length, so this is
+     * a plain byte-wise comparison that stops at the first difference, and
+     * it gives numeric order for unpadded non-negative numbers too (where
+     * String.compareTo would put "10" before "9").
+     *
+     * Only use it on strings of digits: "0" padding is not stripped, and
+     * other characters are compared by their code.
+     *
+     * @return the comparator
+     */
+    public static Comparator<String> numericStrings() {
+        return NUMERIC_STRINGS;
+    }
+}
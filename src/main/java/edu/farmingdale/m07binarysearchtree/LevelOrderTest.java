@@ -0,0 +1,95 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Checks the level-order traversals: bfs on an empty tree does nothing,
+ * the levels of bfsLevels run in bfs order with one list per depth down to
+ * the height, and the parallel form hands the action the same levels (and
+ * passes on what the action throws).
+ *
+ * @author gerstl
+ */
+public class LevelOrderTest implements RunTest {
+
+    public String runTest() {
+        var random = new Random();
+        BinarySearchTree<Integer> theTree = new BinarySearchTree<>(BinarySearchTree.Balance.AVL);
+        int[] calls = {0};
+        theTree.bfs(e -> ++calls[0]);
+        theTree.bfsLevels((level, depth) -> ++calls[0]);
+        theTree.bfsLevels((level, depth) -> ++calls[0], true);
+        if (calls[0] != 0) {
+            return "Failed at V0100";
+        }
+
+        for (int i = 0; i < 200_000; ++i) {
+            theTree.insert(random.nextInt(1_000_000));
+        }
+        List<Integer> bfsOrder = new ArrayList<>();
+        theTree.bfs(e -> bfsOrder.add((Integer) e));
+        List<List<Integer>> levels = new ArrayList<>();
+        String[] bad = {null};
+        theTree.bfsLevels((level, depth) -> {
+            if (depth != levels.size() || level.size() > (1L << depth)) {
+                bad[0] = "Failed at V0101";
+            }
+            levels.add(level);
+        });
+        if (null != bad[0]) {
+            return bad[0];
+        }
+        if (levels.size() != theTree.height() + 1 || levels.get(0).size() != 1
+                || !levels.get(0).get(0).equals(theTree.root.data)) {
+            return "Failed at V0102";
+        }
+        List<Integer> flattened = new ArrayList<>();
+        levels.forEach(flattened::addAll);
+        if (!flattened.equals(bfsOrder) || flattened.size() != theTree.numberOfNodes()) {
+            return "Failed at V0103";
+        }
+        try {
+            levels.get(0).add(0);
+            return "Failed at V0104";
+        } catch (UnsupportedOperationException e) {
+            // expected: the levels are read only
+        }
+
+        // in parallel the wide levels may finish in any order, but each is
+        // the same list
+        var byDepth = new ConcurrentHashMap<Integer, List<Integer>>();
+        theTree.bfsLevels((level, depth) -> byDepth.put(depth, level), true);
+        if (byDepth.size() != levels.size()) {
+            return "Failed at V0105";
+        }
+        for (int depth = 0; depth < levels.size(); ++depth) {
+            if (!levels.get(depth).equals(byDepth.get(depth))) {
+                return "Failed at V0106";
+            }
+        }
+        // a failure in a level run on the pool reaches the caller
+        try {
+            theTree.bfsLevels((level, depth) -> {
+                if (level.size() >= BinaryTree.PARALLEL_LEVEL_THRESHOLD) {
+                    throw new IllegalStateException();
+                }
+            }, true);
+            return "Failed at V0107";
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        return "";
+    }
+
+    public String getTestName() {
+        return "Level Order Test";
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Checks BinarySearchMap in every balancing mode against a TreeMap through
+ * a random mix of get, put, computeIfAbsent, merge and remove, including
+ * removal through the entry iterator; then that each operation makes a
+ * single descent (no more comparisons than the tree is tall plus one).
+ *
+ * @author gerstl
+ */
+public class MapTest implements RunTest {
+
+    public String runTest() {
+        for (BinarySearchTree.Balance balance : BinarySearchTree.Balance.values()) {
+            String result = runTest(balance);
+            if (!result.isEmpty()) {
+                System.out.println("Map test failed in mode " + balance);
+                return result;
+            }
+        }
+        return descentTest();
+    }
+
+    private String runTest(BinarySearchTree.Balance balance) {
+        var random = new Random();
+        BinarySearchMap<Integer, Integer> theMap = new BinarySearchMap<>(balance);
+        TreeMap<Integer, Integer> treeMap = new TreeMap<>();
+        for (int i = 0; i < 100_000; ++i) {
+            int key = random.nextInt(20_000);
+            int value = random.nextInt(100);
+            switch (random.nextInt(6)) {
+                case 0:
+                    if (!equal(theMap.put(key, value), treeMap.put(key, value))) {
+                        return "Failed at T0100";
+                    }
+                    break;
+                case 1:
+                    if (!equal(theMap.get(key), treeMap.get(key))) {
+                        return "Failed at T0101";
+                    }
+                    break;
+                case 2:
+                    if (!equal(theMap.computeIfAbsent(key, k -> k % 7), treeMap.computeIfAbsent(key, k -> k % 7))) {
+                        return "Failed at T0102";
+                    }
+                    break;
+                case 3:
+                    // a sum that drops the entry when it comes to 0 mod 10
+                    if (!equal(theMap.merge(key, value, MapTest::sumOrDrop), treeMap.merge(key, value, MapTest::sumOrDrop))) {
+                        return "Failed at T0103";
+                    }
+                    break;
+                case 4:
+                    if (!equal(theMap.remove(key), treeMap.remove(key))) {
+                        return "Failed at T0104";
+                    }
+                    break;
+                default:
+                    if (theMap.containsKey(key) != treeMap.containsKey(key)) {
+                        return "Failed at T0105";
+                    }
+                    break;
+            }
+            if (theMap.size() != treeMap.size()) {
+                return "Failed at T0106";
+            }
+        }
+        // AbstractMap's equals walks our entries in order
+        if (!theMap.equals(treeMap) || !treeMap.equals(theMap) || theMap.hashCode() != treeMap.hashCode()) {
+            return "Failed at T0107";
+        }
+        // remove the odd values through the iterator, change the rest
+        Iterator<Map.Entry<Integer, Integer>> it = theMap.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Integer> entry = it.next();
+            if (entry.getValue() % 2 == 1) {
+                it.remove();
+            } else {
+                entry.setValue(entry.getValue() + 1);
+            }
+        }
+        treeMap.values().removeIf(v -> v % 2 == 1);
+        treeMap.replaceAll((k, v) -> v + 1);
+        if (!theMap.equals(treeMap)) {
+            return "Failed at T0108";
+        }
+        // a mapping function that changes the map is caught
+        try {
+            theMap.computeIfAbsent(-1, k -> theMap.put(-2, 0));
+            return "Failed at T0109";
+        } catch (ConcurrentModificationException e) {
+            // expected; the put itself happened
+            treeMap.put(-2, 0);
+        }
+        // a function that only reads is fine, even though in SPLAY mode the
+        // read rotates the tree
+        for (int i = 0; i < 1_000; ++i) {
+            int key = random.nextInt(40_000);
+            Integer expected = treeMap.computeIfAbsent(key, k -> treeMap.size() % 5 + treeMap.getOrDefault(k / 2, 0));
+            Integer actual = theMap.computeIfAbsent(key, k -> theMap.size() % 5 + theMap.getOrDefault(k / 2, 0));
+            if (!equal(expected, actual)) {
+                return "Failed at T0111";
+            }
+        }
+        if (!theMap.equals(treeMap)) {
+            return "Failed at T0112";
+        }
+        // computeIfAbsent never calls the function for a present key
+        Integer someKey = treeMap.firstKey();
+        theMap.computeIfAbsent(someKey, k -> {
+            throw new IllegalStateException();
+        });
+        return "";
+    }
+
+    /**
+     * Count comparisons with a comparator that counts its calls
+     */
+    private String descentTest() {
+        var random = new Random();
+        long[] calls = {0};
+        Comparator<String> counting = (a, b) -> {
+            ++calls[0];
+            return a.compareTo(b);
+        };
+        BinarySearchMap<String, Integer> theMap = new BinarySearchMap<>(counting, BinarySearchTree.Balance.AVL);
+        for (int i = 0; i < 50_000; ++i) {
+            String word = Integer.toString(random.nextInt(100_000), 36);
+            int height = treeHeight(theMap);
+            calls[0] = 0;
+            switch (i % 4) {
+                case 0:
+                    theMap.merge(word, 1, Integer::sum);
+                    break;
+                case 1:
+                    theMap.computeIfAbsent(word, String::length);
+                    break;
+                case 2:
+                    theMap.put(word, i);
+                    break;
+                default:
+                    theMap.get(word);
+                    break;
+            }
+            if (calls[0] > height + 2) {
+                return "Failed at T0110";
+            }
+        }
+        return "";
+    }
+
+    private static int treeHeight(BinarySearchMap<?, ?> theMap) {
+        // the height of a balanced tree of n keys is at most 1.44 log2(n+2)
+        return (int) (1.44 * Math.log(theMap.size() + 2) / Math.log(2));
+    }
+
+    private static Integer sumOrDrop(Integer a, Integer b) {
+        int sum = a + b;
+        return (sum % 10 == 0) ? null : sum;
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return (null == a) ? null == b : a.equals(b);
+    }
+
+    public String getTestName() {
+        return "Map Test";
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * (c) David Gerstl, 2021. all rights reserved. For use
+ * in my CSC programming classes
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A tree file, memory mapped and queried in place. The file holds the keys
+ * in ascending order, so a lookup is a binary search over the mapping that
+ * decodes only the keys it probes, and opening a file costs nothing beyond
+ * reading the header: the operating system pages in what is used.
+ *
+ * File layout (big-endian):
+ * <pre>
+ *  0  int  magic "BSTF"
+ *  4  int  format version
+ *  8  int  codec id
+ * 12  int  codec width (bytes per key, -1 if variable)
+ * 16  int  number of keys
+ * 20  long offset of the offset table (variable width only, else 0)
+ * 28  int  reserved
+ * 32  the keys, in ascending order
+ *     the offset table: number of keys + 1 ints, where key i occupies
+ *     [offset i, offset i+1)
+ * </pre>
+ * A mapping is at most 2GB, so that is the largest file. "Ascending" is the
+ * order of the tree that was saved; the file does not record a comparator,
+ * so a file saved from a tree with one must be opened with the same one.
+ *
+ * @author gerstl
+ * @param <T> the key type
+ */
+public final class MappedBinarySearchTree<T> implements Iterable<T> {
+
+    static final int MAGIC = 0x42535446;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    private static final int TABLE_POSITION = 20;
+
+    private final ByteBuffer buffer;
+    private final KeyCodec<T> codec;
+    // the order of the keys, null for their natural order
+    private final Comparator<? super T> comparator;
+    private final int width;
+    private final int count;
+    private final int table;
+
+    private MappedBinarySearchTree(ByteBuffer buffer, KeyCodec<T> codec, Comparator<? super T> comparator, Path file) throws IOException {
+        this.buffer = buffer;
+        this.codec = codec;
+        this.comparator = comparator;
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a tree file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException(file + " has format version " + buffer.getInt(4) + ", expected " + VERSION);
+        }
+        if (buffer.getInt(8) != codec.id() || buffer.getInt(12) != codec.width()) {
+            throw new IOException(file + " was written with codec " + buffer.getInt(8) + ", not " + codec.id());
+        }
+        width = codec.width();
+        count = buffer.getInt(16);
+        table = (int) buffer.getLong(TABLE_POSITION);
+        long end = (width < 0) ? table + 4L * (count + 1) : HEADER_SIZE + (long) width * count;
+        if (count < 0 || end > buffer.capacity()) {
+            throw new IOException(file + " is truncated");
+        }
+    }
+
+    /**
+     * Map a tree file for querying
+     *
+     * @param <T> the key type
+     * @param file the file written by BinarySearchTree.save()
+     * @param codec the codec it was written with
+     * @return the mapped tree
+     * @throws IOException if the file cannot be read or is not a tree file
+     * written with this codec
+     */
+    public static <T extends Comparable<T>> MappedBinarySearchTree<T> open(Path file, KeyCodec<T> codec) throws IOException {
+        return open(file, codec, null);
+    }
+
+    /**
+     * Map a tree file saved from a tree with a comparator
+     *
+     * @param <T> the key type
+     * @param file the file written by BinarySearchTree.save()
+     * @param codec the codec it was written with
+     * @param comparator the comparator of the tree that was saved (null for
+     * natural ordering)
+     * @return the mapped tree
+     * @throws IOException if the file cannot be read or is not a tree file
+     * written with this codec
+     */
+    public static <T> MappedBinarySearchTree<T> open(Path file, KeyCodec<T> codec, Comparator<? super T> comparator) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_SIZE) {
+                throw new IOException(file + " is not a tree file");
+            }
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to map");
+            }
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            return new MappedBinarySearchTree<>(mapped, codec, comparator, file);
+        }
+    }
+
+    /**
+     * Write a tree's keys to a file in order. The file is written under a
+     * temporary name of its own (so two saves to the same file cannot write
+     * into each other's), forced to disk and then renamed over file, so a
+     * crash leaves either the old file or the new one; if the write fails,
+     * the temporary file is deleted and file is left alone. A file that would
+     * not fit in one mapping is refused before anything is written when
+     * the codec has a fixed width, and as soon as the keys pass the limit
+     * otherwise.
+     */
+    static <T> void write(BinarySearchTree<T> tree, Path file, KeyCodec<T> codec) throws IOException {
+        int count = tree.numberOfNodes();
+        int[] offsets = (codec.width() < 0) ? new int[count + 1] : null;
+        long tableBytes = (null == offsets) ? 0 : 4L * (count + 1);
+        long leastSize = HEADER_SIZE + tableBytes + ((null == offsets) ? (long) codec.width() * count : 0);
+        if (leastSize > Integer.MAX_VALUE) {
+            throw new IOException(count + " keys need at least " + leastSize
+                    + " bytes, more than the " + Integer.MAX_VALUE + " a tree file can map");
+        }
+        long tableOffset = 0;
+        Path directory = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(codec.id());
+                out.writeInt(codec.width());
+                out.writeInt(count);
+                out.writeLong(0); // patched below
+                out.writeInt(0);
+                int i = 0;
+                for (T key : tree) {
+                    if (null != offsets) {
+                        offsets[i++] = out.size();
+                    }
+                    codec.write(key, out);
+                    // size() sticks at Integer.MAX_VALUE when it overflows
+                    if (out.size() == Integer.MAX_VALUE || out.size() + tableBytes > Integer.MAX_VALUE) {
+                        throw new IOException("tree is too large for a tree file (more than "
+                                + Integer.MAX_VALUE + " bytes)");
+                    }
+                }
+                if (null != offsets) {
+                    offsets[count] = out.size();
+                    tableOffset = out.size();
+                    for (int offset : offsets) {
+                        out.writeInt(offset);
+                    }
+                }
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer patch = ByteBuffer.allocate(Long.BYTES).putLong(0, tableOffset);
+                channel.write(patch, TABLE_POSITION);
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Throwable t) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                t.addSuppressed(e);
+            }
+            throw t;
+        }
+    }
+
+    /**
+     * Decode every key and build a balanced tree from them, ordered by this
+     * file's comparator. The keys are decoded in parallel and are already
+     * sorted, so this is linear.
+     *
+     * @param balance the mode of the new tree
+     * @return a tree holding every key in the file
+     */
+    public BinarySearchTree<T> toTree(BinarySearchTree.Balance balance) {
+        Object[] elements = new Object[count];
+        Arrays.parallelSetAll(elements, this::keyAt);
+        return BinarySearchTree.fromSortedArray(elements, comparator, balance);
+    }
+
+    /**
+     * @return the number of keys
+     */
+    public int numberOfNodes() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * @param findMe the key to look for
+     * @return true iff the key is in the file
+     */
+    public boolean search(T findMe) {
+        int i = lowerBound(findMe, false);
+        return i < count && compare(keyAt(i), findMe) == 0;
+    }
+
+    /**
+     * The number of keys less than value
+     *
+     * @param value the value to rank
+     * @return how many keys are smaller
+     */
+    public int rank(T value) {
+        return lowerBound(value, false);
+    }
+
+    /**
+     * The k-th smallest key (0 based)
+     *
+     * @param k the rank of the key wanted
+     * @return the key
+     * @throws IndexOutOfBoundsException if k is not in [0, numberOfNodes())
+     */
+    public T select(int k) {
+        if (k < 0 || k >= count) {
+            throw new IndexOutOfBoundsException("select(" + k + ") on " + count + " keys");
+        }
+        return keyAt(k);
+    }
+
+    /**
+     * The number of keys in [lo, hi]
+     *
+     * @param lo the lowest key counted
+     * @param hi the highest key counted
+     * @return the count, 0 if lo &gt; hi
+     */
+    public int countInRange(T lo, T hi) {
+        if (compare(lo, hi) > 0) {
+            return 0;
+        }
+        return lowerBound(hi, true) - lowerBound(lo, false);
+    }
+
+    /**
+     * @return the keys in ascending order
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new IndexIterator(0, count);
+    }
+
+    /**
+     * The keys in [from, to) in ascending order. A null bound is open.
+     *
+     * @param from the first key included (null: from the smallest)
+     * @param to the first key excluded (null: to the end)
+     * @return an iterator over the range
+     */
+    public Iterator<T> iterator(T from, T to) {
+        int start = (null == from) ? 0 : lowerBound(from, false);
+        int fence = (null == to) ? count : lowerBound(to, false);
+        return new IndexIterator(start, Math.max(start, fence));
+    }
+
+    // the index of the first key >= value (> value if strict), count if none
+    private int lowerBound(T value, boolean strict) {
+        int lo = 0;
+        int hi = count;
+        int limit = strict ? 1 : 0;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(keyAt(mid), value) < limit) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(T a, T b) {
+        if (null == comparator) {
+            return ((Comparable<Object>) a).compareTo(b);
+        }
+        return comparator.compare(a, b);
+    }
+
+    private T keyAt(int i) {
+        if (width >= 0) {
+            return codec.read(buffer, HEADER_SIZE + i * width, width);
+        }
+        int start = buffer.getInt(table + 4 * i);
+        return codec.read(buffer, start, buffer.getInt(table + 4 * i + 4) - start);
+    }
+
+    private class IndexIterator implements Iterator<T> {
+
+        private int next;
+        private final int fence;
+
+        IndexIterator(int start, int fence) {
+            this.next = start;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < fence;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return keyAt(next++);
+        }
+    }
+}
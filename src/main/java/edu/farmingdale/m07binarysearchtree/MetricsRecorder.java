@@ -0,0 +1,204 @@
+/*
+ * (c) David Gerstl, 2021. all rights reserved. For use
+ * in my CSC programming classes
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A TreeMetrics sink that counts. For each operation it keeps the number of
+ * calls and hits, the total comparisons and time, a histogram of path
+ * lengths and a histogram of latencies in power-of-two nanosecond buckets;
+ * it also keeps the height and node count from the latest report. All of it
+ * is safe to update from several threads, and snapshot() reads it without
+ * stopping them.
+ *
+ * @author gerstl
+ */
+public class MetricsRecorder implements TreeMetrics {
+
+    // paths this long or longer share the last bucket
+    public static final int MAX_PATH = 64;
+
+    private static final int OPERATIONS = Operation.values().length;
+
+    private final LongAdder[] calls = adders();
+    private final LongAdder[] hits = adders();
+    private final LongAdder[] comparisons = adders();
+    private final LongAdder[] nanos = adders();
+    private final AtomicLongArray paths = new AtomicLongArray(OPERATIONS * (MAX_PATH + 1));
+    private final AtomicLongArray latencies = new AtomicLongArray(OPERATIONS * 64);
+    private volatile int height = -1;
+    private volatile int nodes;
+
+    private static LongAdder[] adders() {
+        LongAdder[] rv = new LongAdder[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; ++i) {
+            rv[i] = new LongAdder();
+        }
+        return rv;
+    }
+
+    @Override
+    public void record(Operation operation, boolean hit, int comparisons, int pathLength, long nanos,
+            int height, int nodes) {
+        int op = operation.ordinal();
+        calls[op].increment();
+        if (hit) {
+            hits[op].increment();
+        }
+        this.comparisons[op].add(comparisons);
+        this.nanos[op].add(nanos);
+        paths.incrementAndGet(op * (MAX_PATH + 1) + Math.min(pathLength, MAX_PATH));
+        // bucket b holds latencies in [2^(b-1), 2^b)
+        latencies.incrementAndGet(op * 64 + Math.min(63, 64 - Long.numberOfLeadingZeros(nanos)));
+        this.height = height;
+        this.nodes = nodes;
+    }
+
+    /**
+     * @return a copy of everything recorded so far
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * Start counting from zero again (the height and node count stay)
+     */
+    public void reset() {
+        for (int op = 0; op < OPERATIONS; ++op) {
+            calls[op].reset();
+            hits[op].reset();
+            comparisons[op].reset();
+            nanos[op].reset();
+        }
+        for (int i = 0; i < paths.length(); ++i) {
+            paths.set(i, 0);
+        }
+        for (int i = 0; i < latencies.length(); ++i) {
+            latencies.set(i, 0);
+        }
+    }
+
+    /**
+     * What a MetricsRecorder had counted at one moment. Operations still
+     * running when it was taken may be partly in it.
+     */
+    public static final class Snapshot {
+
+        private final long[] calls = new long[OPERATIONS];
+        private final long[] hits = new long[OPERATIONS];
+        private final long[] comparisons = new long[OPERATIONS];
+        private final long[] nanos = new long[OPERATIONS];
+        private final long[][] paths = new long[OPERATIONS][MAX_PATH + 1];
+        private final long[][] latencies = new long[OPERATIONS][64];
+        private final int height;
+        private final int nodes;
+
+        private Snapshot(MetricsRecorder from) {
+            for (int op = 0; op < OPERATIONS; ++op) {
+                calls[op] = from.calls[op].sum();
+                hits[op] = from.hits[op].sum();
+                comparisons[op] = from.comparisons[op].sum();
+                nanos[op] = from.nanos[op].sum();
+                for (int i = 0; i <= MAX_PATH; ++i) {
+                    paths[op][i] = from.paths.get(op * (MAX_PATH + 1) + i);
+                }
+                for (int i = 0; i < 64; ++i) {
+                    latencies[op][i] = from.latencies.get(op * 64 + i);
+                }
+            }
+            height = from.height;
+            nodes = from.nodes;
+        }
+
+        public long calls(Operation operation) {
+            return calls[operation.ordinal()];
+        }
+
+        public long hits(Operation operation) {
+            return hits[operation.ordinal()];
+        }
+
+        public long comparisons(Operation operation) {
+            return comparisons[operation.ordinal()];
+        }
+
+        public long totalNanos(Operation operation) {
+            return nanos[operation.ordinal()];
+        }
+
+        /**
+         * @param operation the operation
+         * @return the count of calls by path length; the last entry counts
+         * MAX_PATH and longer
+         */
+        public long[] pathLengths(Operation operation) {
+            return paths[operation.ordinal()].clone();
+        }
+
+        /**
+         * @param operation the operation
+         * @return the mean number of comparisons per call (0 if none)
+         */
+        public double meanComparisons(Operation operation) {
+            long n = calls(operation);
+            return (n == 0) ? 0 : (double) comparisons(operation) / n;
+        }
+
+        /**
+         * An upper bound on a latency percentile, to within a factor of two
+         * (the histogram buckets are powers of two)
+         *
+         * @param operation the operation
+         * @param percentile between 0 and 100
+         * @return nanoseconds, 0 if there were no calls
+         */
+        public long latencyPercentile(Operation operation, double percentile) {
+            long[] buckets = latencies[operation.ordinal()];
+            long total = 0;
+            for (long count : buckets) {
+                total += count;
+            }
+            long wanted = (long) Math.ceil(total * percentile / 100.0);
+            long seen = 0;
+            for (int b = 0; b < buckets.length; ++b) {
+                seen += buckets[b];
+                if (seen >= wanted && seen > 0) {
+                    return (b == 0) ? 0 : (1L << b) - 1;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * @return the height of the tree at the latest report (-1 if empty or
+         * never reported)
+         */
+        public int height() {
+            return height;
+        }
+
+        /**
+         * @return the node count at the latest report
+         */
+        public int nodes() {
+            return nodes;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("height ").append(height).append(", nodes ").append(nodes);
+            for (Operation operation : Operation.values()) {
+                sb.append(String.format("%n%-6s calls %d, hits %d, comparisons/call %.2f, p50 %dns, p99 %dns",
+                        operation, calls(operation), hits(operation), meanComparisons(operation),
+                        latencyPercentile(operation, 50), latencyPercentile(operation, 99)));
+            }
+            return sb.toString();
+        }
+    }
+}
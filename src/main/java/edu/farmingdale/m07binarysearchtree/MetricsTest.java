@@ -0,0 +1,146 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Checks the metrics surface: the recorder's counts, histograms and gauges
+ * must match what was done to the tree, and the JFR sink must emit one
+ * event per operation into a recording, and allocate nothing while no
+ * recording wants its events.
+ *
+ * @author gerstl
+ */
+public class MetricsTest implements RunTest {
+
+    public String runTest() {
+        var random = new Random();
+        var recorder = new MetricsRecorder();
+        BinarySearchTree<Integer> theTree = new BinarySearchTree<>(BinarySearchTree.Balance.AVL);
+        TreeSet<Integer> theSet = new TreeSet<>();
+        theTree.setMetrics(recorder);
+        int inserted = 0;
+        for (int i = 0; i < 20_000; ++i) {
+            int aNumber = random.nextInt(30_000);
+            inserted += theTree.insert(aNumber) ? 1 : 0;
+            theSet.add(aNumber);
+        }
+        int found = 0;
+        for (int i = 0; i < 10_000; ++i) {
+            found += theTree.search(random.nextInt(30_000)) ? 1 : 0;
+        }
+        int removed = 0;
+        for (int i = 0; i < 5_000; ++i) {
+            int aNumber = random.nextInt(30_000);
+            removed += theTree.remove(aNumber) ? 1 : 0;
+            theSet.remove(aNumber);
+        }
+        MetricsRecorder.Snapshot snapshot = recorder.snapshot();
+        if (snapshot.calls(TreeMetrics.Operation.INSERT) != 20_000
+                || snapshot.calls(TreeMetrics.Operation.SEARCH) != 10_000
+                || snapshot.calls(TreeMetrics.Operation.REMOVE) != 5_000) {
+            return "Failed at P0100";
+        }
+        if (snapshot.hits(TreeMetrics.Operation.INSERT) != inserted
+                || snapshot.hits(TreeMetrics.Operation.SEARCH) != found
+                || snapshot.hits(TreeMetrics.Operation.REMOVE) != removed) {
+            return "Failed at P0101";
+        }
+        if (snapshot.nodes() != theSet.size() || snapshot.height() != theTree.height()) {
+            return "Failed at P0102";
+        }
+        for (TreeMetrics.Operation operation : TreeMetrics.Operation.values()) {
+            long[] paths = snapshot.pathLengths(operation);
+            if (Arrays.stream(paths).sum() != snapshot.calls(operation)) {
+                return "Failed at P0103";
+            }
+            // an AVL tree never needs a path longer than its height + 1
+            for (int length = theTree.height() + 3; length < paths.length; ++length) {
+                if (paths[length] != 0) {
+                    return "Failed at P0104";
+                }
+            }
+            if (snapshot.latencyPercentile(operation, 99) < snapshot.latencyPercentile(operation, 50)
+                    || snapshot.latencyPercentile(operation, 100) <= 0) {
+                return "Failed at P0105";
+            }
+        }
+        // insert and remove compare once per level
+        double perLevel = snapshot.meanComparisons(TreeMetrics.Operation.INSERT);
+        if (perLevel < 1 || perLevel > theTree.height() + 2) {
+            return "Failed at P0106";
+        }
+        recorder.reset();
+        theTree.setMetrics(null);
+        theTree.insert(-1);
+        if (recorder.snapshot().calls(TreeMetrics.Operation.INSERT) != 0) {
+            return "Failed at P0107";
+        }
+
+        // JFR, first with the event off: the sink must not allocate
+        var jfr = new JfrTreeMetrics();
+        var threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemoryEnabled()) {
+            var hotSpotThreads = (com.sun.management.ThreadMXBean) threads;
+            long threadId = Thread.currentThread().getId();
+            // once to load the classes; no more warm up, as once compiled
+            // an unused event can be optimized away and the check would pass
+            jfr.record(TreeMetrics.Operation.SEARCH, true, 1, 1, 1, 1, 1);
+            long before = hotSpotThreads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < 100_000; ++i) {
+                jfr.record(TreeMetrics.Operation.SEARCH, true, 1, 1, 1, 1, 1);
+            }
+            // allow for stray bookkeeping, far below an event each
+            if (hotSpotThreads.getThreadAllocatedBytes(threadId) - before > 100_000) {
+                return "Failed at P0110";
+            }
+        }
+        Path dump = null;
+        try (Recording recording = new Recording()) {
+            recording.enable("edu.farmingdale.m07binarysearchtree.TreeOperation");
+            recording.start();
+            theTree.setMetrics(jfr.andThen(recorder));
+            for (int i = 0; i < 100; ++i) {
+                theTree.search(i);
+            }
+            recording.stop();
+            dump = Files.createTempFile("tree", ".jfr");
+            recording.dump(dump);
+            long events = 0;
+            for (RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+                if (event.getEventType().getName().endsWith("TreeOperation")
+                        && "SEARCH".equals(event.getString("operation"))) {
+                    ++events;
+                }
+            }
+            if (events != 100 || recorder.snapshot().calls(TreeMetrics.Operation.SEARCH) != 100) {
+                return "Failed at P0108";
+            }
+        } catch (IOException e) {
+            return "Failed at P0109 (" + e + ")";
+        } finally {
+            if (null != dump) {
+                dump.toFile().delete();
+            }
+        }
+        return "";
+    }
+
+    public String getTestName() {
+        return "Metrics Test";
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Checks numberOfNodes, rank, select and countInRange against a TreeSet
+ * after a mix of inserts and removals.
+ *
+ * @author gerstl
+ */
+public class OrderStatisticsTest implements RunTest {
+
+    public String runTest() {
+        BinarySearchTree<Integer> theTree = new BinarySearchTree<>();
+        TreeSet<Integer> theSet = new TreeSet<>();
+        final int TEST_SIZE = 20_000;
+        var random = new Random();
+        for (int i = 0; i < TEST_SIZE; ++i) {
+            int aNumber = random.nextInt(TEST_SIZE);
+            theTree.insert(aNumber);
+            theSet.add(aNumber);
+        }
+        for (int i = 0; i < TEST_SIZE / 4; ++i) {
+            int aNumber = random.nextInt(TEST_SIZE);
+            theTree.remove(aNumber);
+            theSet.remove(aNumber);
+        }
+        if (theTree.numberOfNodes() != theSet.size()) {
+            return "Failed at C0100";
+        }
+        var sorted = new ArrayList<Integer>(theSet);
+        for (int k = 0; k < sorted.size(); ++k) {
+            if (!theTree.select(k).equals(sorted.get(k))) {
+                return "Failed at C0101";
+            }
+            if (theTree.rank(sorted.get(k)) != k) {
+                return "Failed at C0102";
+            }
+        }
+        // ranks of values that are not in the tree
+        for (int i = 0; i < 1000; ++i) {
+            int aNumber = random.nextInt(TEST_SIZE + 2) - 1;
+            if (theTree.rank(aNumber) != theSet.headSet(aNumber, false).size()) {
+                return "Failed at C0103";
+            }
+        }
+        for (int i = 0; i < 1000; ++i) {
+            int lo = random.nextInt(TEST_SIZE);
+            int hi = lo + random.nextInt(TEST_SIZE / 10);
+            if (theTree.countInRange(lo, hi) != theSet.subSet(lo, true, hi, true).size()) {
+                return "Failed at C0104";
+            }
+        }
+        if (theTree.countInRange(10, 5) != 0) {
+            return "Failed at C0105";
+        }
+        try {
+            theTree.select(theSet.size());
+            return "Failed at C0106";
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        return "";
+    }
+
+    public String getTestName() {
+        return "Order Statistics Test";
+    }
+}
@@ -0,0 +1,635 @@
+/*
+ * (c) David Gerstl, 2021. all rights reserved. For use
+ * in my CSC programming classes
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * A binary search tree whose nodes live in parallel arrays instead of one
+ * Node object each. A node is an int slot number: its key is keys[slot] and
+ * its links are leftChild[slot], rightChild[slot] and parent[slot], with NIL
+ * for "no node". Removed slots are chained through leftChild into a free list
+ * and reused by later inserts.
+ *
+ * This has the same operations as BinarySearchTree: search, insert, remove,
+ * the traversals, rank and select, equals/hashCode and toString. For a tree
+ * of n nodes the structure costs about 24 bytes per slot (one reference,
+ * five ints) and a handful of objects in total, so the garbage collector has
+ * almost nothing to trace.
+ *
+ * @author gerstl
+ * @param <T> type to be stored in the tree. Must implement Comparable
+ */
+public class PooledBinarySearchTree<T extends Comparable<T>> implements Iterable<T> {
+
+    static final int NIL = -1;
+    private static final int DEFAULT_CAPACITY = 16;
+    // the largest array most JVMs will allocate
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private Object[] keys;
+    private int[] leftChild;
+    private int[] rightChild;
+    private int[] parent;
+    // height of the subtree anchored at each slot (a leaf is 0)
+    private int[] height;
+    // number of nodes in the subtree anchored at each slot, for rank/select
+    private int[] size;
+
+    private int root;
+    private int count;
+    // slots [0, highWater) have been handed out at least once
+    private int highWater;
+    // head of the chain of removed slots, linked through leftChild
+    private int freeList;
+    private final BinarySearchTree.Balance balance;
+
+    /**
+     * Default ctor. The tree is not balanced
+     */
+    public PooledBinarySearchTree() {
+        this(BinarySearchTree.Balance.NONE, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Ctor choosing the balancing mode and how many slots to reserve up front
+     *
+     * @param balance Balance.AVL to keep the tree height logarithmic, or
+     * Balance.NONE
+     * @param initialCapacity the number of nodes to allocate room for
+     * @throws IllegalArgumentException for Balance.SPLAY, which this tree
+     * does not implement
+     */
+    public PooledBinarySearchTree(BinarySearchTree.Balance balance, int initialCapacity) {
+        if (balance == BinarySearchTree.Balance.SPLAY) {
+            throw new IllegalArgumentException("PooledBinarySearchTree does not splay");
+        }
+        this.balance = balance;
+        allocate(Math.max(initialCapacity, 1));
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        leftChild = new int[capacity];
+        rightChild = new int[capacity];
+        parent = new int[capacity];
+        height = new int[capacity];
+        size = new int[capacity];
+        root = NIL;
+        count = 0;
+        highWater = 0;
+        freeList = NIL;
+    }
+
+    /**
+     * @return the count of nodes
+     */
+    public int numberOfNodes() {
+        return count;
+    }
+
+    /**
+     * @return the height of the tree (-1 if empty)
+     */
+    public int height() {
+        return nodeHeight(root);
+    }
+
+    /**
+     * @return true iff the tree is empty
+     */
+    public boolean isEmpty() {
+        return root == NIL;
+    }
+
+    /**
+     * clears the entire tree. The arrays keep their capacity
+     */
+    public void clear() {
+        Arrays.fill(keys, 0, highWater, null);
+        root = NIL;
+        count = 0;
+        highWater = 0;
+        freeList = NIL;
+    }
+
+    /**
+     * @return the number of slots currently allocated
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Estimate the memory held by the pool arrays: each array is a 16 byte
+     * header plus its elements, with references counted at the size the
+     * running JVM uses. The keys themselves are not included.
+     *
+     * @return the approximate size of the tree structure in bytes
+     */
+    public long memoryUsage() {
+        long slots = keys.length;
+        return 6 * 16L + slots * (referenceSize() + 5L * Integer.BYTES);
+    }
+
+    private static int referenceSize() {
+        // compressed oops are the default below a 32GB heap
+        String model = System.getProperty("sun.arch.data.model", "64");
+        if ("32".equals(model) || Runtime.getRuntime().maxMemory() < 32L * 1024 * 1024 * 1024) {
+            return 4;
+        }
+        return 8;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T key(int slot) {
+        return (T) keys[slot];
+    }
+
+    /**
+     * Search for an element
+     *
+     * @param findMe the element to look for
+     * @return true iff the element is in the tree
+     */
+    public boolean search(T findMe) {
+        return findSlot(findMe) != NIL;
+    }
+
+    private int findSlot(T findMe) {
+        int current = root;
+        while (current != NIL) {
+            int comparison = findMe.compareTo(key(current));
+            if (comparison == 0) {
+                return current;
+            }
+            current = (comparison < 0) ? leftChild[current] : rightChild[current];
+        }
+        return NIL;
+    }
+
+    /**
+     * Insert an element
+     *
+     * @param addMe the element to add
+     * @return true iff the element was not already in the tree
+     */
+    public boolean insert(T addMe) {
+        int trail = NIL;
+        int traverse = root;
+        int comparison = 0;
+        while (traverse != NIL) {
+            trail = traverse;
+            comparison = addMe.compareTo(key(traverse));
+            if (comparison == 0) {
+                return false;
+            }
+            traverse = (comparison < 0) ? leftChild[traverse] : rightChild[traverse];
+        }
+        int slot = newSlot(addMe, trail);
+        if (trail == NIL) {
+            root = slot;
+        } else if (comparison < 0) {
+            leftChild[trail] = slot;
+        } else {
+            rightChild[trail] = slot;
+        }
+        ++count;
+        retrace(trail);
+        return true;
+    }
+
+    /**
+     * Remove an element
+     *
+     * @param removeMe the element to remove
+     * @return true iff the element was in the tree
+     */
+    public boolean remove(T removeMe) {
+        int slot = findSlot(removeMe);
+        if (slot == NIL) {
+            return false;
+        }
+        if (leftChild[slot] != NIL && rightChild[slot] != NIL) {
+            // take the successor's key, then unlink the successor instead
+            int successor = leftmost(rightChild[slot]);
+            keys[slot] = keys[successor];
+            slot = successor;
+        }
+        int child = (leftChild[slot] != NIL) ? leftChild[slot] : rightChild[slot];
+        int trail = parent[slot];
+        if (child != NIL) {
+            parent[child] = trail;
+        }
+        replaceChild(trail, slot, child);
+        freeSlot(slot);
+        --count;
+        retrace(trail);
+        return true;
+    }
+
+    /**
+     * Take a slot from the free list, or the next never-used slot, growing
+     * the arrays if they are full.
+     */
+    private int newSlot(T data, int theParent) {
+        int slot;
+        if (freeList != NIL) {
+            slot = freeList;
+            freeList = leftChild[slot];
+        } else {
+            if (highWater == keys.length) {
+                grow();
+            }
+            slot = highWater++;
+        }
+        keys[slot] = data;
+        leftChild[slot] = NIL;
+        rightChild[slot] = NIL;
+        parent[slot] = theParent;
+        height[slot] = 0;
+        size[slot] = 1;
+        return slot;
+    }
+
+    private void freeSlot(int slot) {
+        keys[slot] = null;
+        rightChild[slot] = NIL;
+        parent[slot] = NIL;
+        leftChild[slot] = freeList;
+        freeList = slot;
+    }
+
+    private void grow() {
+        if (keys.length >= MAX_CAPACITY) {
+            throw new OutOfMemoryError("PooledBinarySearchTree cannot grow past " + keys.length + " slots");
+        }
+        int newCapacity = (int) Math.min(Math.max(keys.length * 2L, DEFAULT_CAPACITY), MAX_CAPACITY);
+        keys = Arrays.copyOf(keys, newCapacity);
+        leftChild = Arrays.copyOf(leftChild, newCapacity);
+        rightChild = Arrays.copyOf(rightChild, newCapacity);
+        parent = Arrays.copyOf(parent, newCapacity);
+        height = Arrays.copyOf(height, newCapacity);
+        size = Arrays.copyOf(size, newCapacity);
+    }
+
+    /**
+     * In order traversal
+     *
+     * @param actionObject called with each element in ascending order
+     */
+    public void dfsInfix(Consumer<? super T> actionObject) {
+        for (int slot = leftmost(root); slot != NIL; slot = successor(slot)) {
+            actionObject.accept(key(slot));
+        }
+    }
+
+    /**
+     * Prefix traversal, following parent links as BinaryTree does
+     *
+     * @param actionObject called with each element, parents before children
+     */
+    public void dfsPrefix(Consumer<? super T> actionObject) {
+        int slot = root;
+        while (slot != NIL) {
+            actionObject.accept(key(slot));
+            if (leftChild[slot] != NIL) {
+                slot = leftChild[slot];
+            } else if (rightChild[slot] != NIL) {
+                slot = rightChild[slot];
+            } else {
+                // climb until we come up from a left child that has a right
+                // sibling; that sibling is next
+                while (slot != root && (slot != leftChild[parent[slot]] || rightChild[parent[slot]] == NIL)) {
+                    slot = parent[slot];
+                }
+                slot = (slot == root) ? NIL : rightChild[parent[slot]];
+            }
+        }
+    }
+
+    /**
+     * Postfix traversal, following parent links as BinaryTree does
+     *
+     * @param actionObject called with each element, children before parents
+     */
+    public void dfsPostfix(Consumer<? super T> actionObject) {
+        int slot = (root == NIL) ? NIL : firstPostfix(root);
+        while (slot != NIL) {
+            actionObject.accept(key(slot));
+            if (slot == root) {
+                slot = NIL;
+            } else if (slot == leftChild[parent[slot]] && rightChild[parent[slot]] != NIL) {
+                slot = firstPostfix(rightChild[parent[slot]]);
+            } else {
+                slot = parent[slot];
+            }
+        }
+    }
+
+    private int firstPostfix(int slot) {
+        while (true) {
+            if (leftChild[slot] != NIL) {
+                slot = leftChild[slot];
+            } else if (rightChild[slot] != NIL) {
+                slot = rightChild[slot];
+            } else {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Breadth-first traversal. Each slot is queued once, so the queue is an
+     * int[] as long as the tree
+     *
+     * @param actionObject called with each element, level by level
+     */
+    public void bfs(Consumer<? super T> actionObject) {
+        int[] queue = new int[count];
+        int head = 0;
+        int tail = 0;
+        if (root != NIL) {
+            queue[tail++] = root;
+        }
+        while (head < tail) {
+            int slot = queue[head++];
+            actionObject.accept(key(slot));
+            if (leftChild[slot] != NIL) {
+                queue[tail++] = leftChild[slot];
+            }
+            if (rightChild[slot] != NIL) {
+                queue[tail++] = rightChild[slot];
+            }
+        }
+    }
+
+    /**
+     * Rank of a value: the number of elements in the tree strictly less than
+     * it. The value itself need not be in the tree. O(height).
+     *
+     * @param value the value to rank
+     * @return the count of smaller elements
+     */
+    public int rank(T value) {
+        int rv = 0;
+        int slot = root;
+        while (slot != NIL) {
+            if (value.compareTo(key(slot)) <= 0) {
+                slot = leftChild[slot];
+            } else {
+                rv += nodeSize(leftChild[slot]) + 1;
+                slot = rightChild[slot];
+            }
+        }
+        return rv;
+    }
+
+    /**
+     * Select the element of a given rank (the k'th smallest, counting from
+     * zero). O(height).
+     *
+     * @param k the rank, 0 &lt;= k &lt; numberOfNodes()
+     * @return the element with exactly k smaller elements in the tree
+     * @throws IndexOutOfBoundsException if k is out of range
+     */
+    public T select(int k) {
+        if (k < 0 || k >= count) {
+            throw new IndexOutOfBoundsException("rank " + k + " of " + count);
+        }
+        int slot = root;
+        while (true) {
+            int leftSize = nodeSize(leftChild[slot]);
+            if (k == leftSize) {
+                return key(slot);
+            }
+            if (k < leftSize) {
+                slot = leftChild[slot];
+            } else {
+                k -= leftSize + 1;
+                slot = rightChild[slot];
+            }
+        }
+    }
+
+    /**
+     * Two pooled trees are equal if they hold the same elements, whatever
+     * their shape
+     *
+     * @param other another object
+     * @return true iff other is a PooledBinarySearchTree with the same
+     * elements
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof PooledBinarySearchTree) || ((PooledBinarySearchTree<?>) other).count != count) {
+            return false;
+        }
+        Iterator<T> mine = iterator();
+        Iterator<?> theirs = ((PooledBinarySearchTree<?>) other).iterator();
+        while (mine.hasNext()) {
+            if (!mine.next().equals(theirs.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The sum of the elements' hashCode()s, as for a java.util.Set (and
+     * BinarySearchTree). There are no cached hashes here, so this is O(n).
+     */
+    @Override
+    public int hashCode() {
+        int rv = 0;
+        for (int slot = leftmost(root); slot != NIL; slot = successor(slot)) {
+            rv += keys[slot].hashCode();
+        }
+        return rv;
+    }
+
+    /**
+     * The same picture as BinaryTree.toString(): a right-first in order
+     * walk, each element indented by its depth
+     */
+    @Override
+    public String toString() {
+        var rv = new StringBuilder();
+        if (root == NIL) {
+            return "";
+        }
+        int indent = 0;
+        int slot = root;
+        while (rightChild[slot] != NIL) {
+            slot = rightChild[slot];
+            indent += 4;
+        }
+        while (slot != NIL) {
+            for (int i = 0; i < indent + 5; ++i) {
+                rv.append(" ");
+            }
+            rv.append("(" + (indent / 4) + ")");
+            rv.append(key(slot));
+            rv.append("\n");
+            // step to the in-order predecessor
+            if (leftChild[slot] != NIL) {
+                slot = leftChild[slot];
+                indent += 4;
+                while (rightChild[slot] != NIL) {
+                    slot = rightChild[slot];
+                    indent += 4;
+                }
+            } else {
+                while (slot != root && slot == leftChild[parent[slot]]) {
+                    slot = parent[slot];
+                    indent -= 4;
+                }
+                slot = (slot == root) ? NIL : parent[slot];
+                indent -= 4;
+            }
+        }
+        return rv.toString();
+    }
+
+    /**
+     * Iterator--returns the elements IN ORDER, following parent links
+     *
+     * @return an iterator that produces elements in order.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+
+            private int next = leftmost(root);
+
+            @Override
+            public boolean hasNext() {
+                return next != NIL;
+            }
+
+            @Override
+            public T next() {
+                if (next == NIL) {
+                    throw new NoSuchElementException();
+                }
+                T rv = key(next);
+                next = successor(next);
+                return rv;
+            }
+        };
+    }
+
+    private int leftmost(int slot) {
+        if (slot != NIL) {
+            while (leftChild[slot] != NIL) {
+                slot = leftChild[slot];
+            }
+        }
+        return slot;
+    }
+
+    private int successor(int slot) {
+        if (rightChild[slot] != NIL) {
+            return leftmost(rightChild[slot]);
+        }
+        int up = parent[slot];
+        while (up != NIL && slot == rightChild[up]) {
+            slot = up;
+            up = parent[up];
+        }
+        return up;
+    }
+
+    // AVL retracing over slot indices, with NIL where a node would be null;
+    // updateHeight keeps size[] current for rank and select too
+
+    private void retrace(int slot) {
+        while (slot != NIL) {
+            updateHeight(slot);
+            if (balance == BinarySearchTree.Balance.AVL) {
+                slot = rebalance(slot);
+            }
+            slot = parent[slot];
+        }
+    }
+
+    private int rebalance(int slot) {
+        int balanceFactor = nodeHeight(leftChild[slot]) - nodeHeight(rightChild[slot]);
+        if (balanceFactor > 1) {
+            int left = leftChild[slot];
+            if (nodeHeight(leftChild[left]) < nodeHeight(rightChild[left])) {
+                rotateLeft(left);
+            }
+            return rotateRight(slot);
+        }
+        if (balanceFactor < -1) {
+            int right = rightChild[slot];
+            if (nodeHeight(rightChild[right]) < nodeHeight(leftChild[right])) {
+                rotateRight(right);
+            }
+            return rotateLeft(slot);
+        }
+        return slot;
+    }
+
+    private int rotateLeft(int slot) {
+        int pivot = rightChild[slot];
+        rightChild[slot] = leftChild[pivot];
+        if (leftChild[pivot] != NIL) {
+            parent[leftChild[pivot]] = slot;
+        }
+        parent[pivot] = parent[slot];
+        replaceChild(parent[slot], slot, pivot);
+        leftChild[pivot] = slot;
+        parent[slot] = pivot;
+        updateHeight(slot);
+        updateHeight(pivot);
+        return pivot;
+    }
+
+    private int rotateRight(int slot) {
+        int pivot = leftChild[slot];
+        leftChild[slot] = rightChild[pivot];
+        if (rightChild[pivot] != NIL) {
+            parent[rightChild[pivot]] = slot;
+        }
+        parent[pivot] = parent[slot];
+        replaceChild(parent[slot], slot, pivot);
+        rightChild[pivot] = slot;
+        parent[slot] = pivot;
+        updateHeight(slot);
+        updateHeight(pivot);
+        return pivot;
+    }
+
+    private void replaceChild(int theParent, int oldChild, int newChild) {
+        if (theParent == NIL) {
+            root = newChild;
+        } else if (leftChild[theParent] == oldChild) {
+            leftChild[theParent] = newChild;
+        } else {
+            rightChild[theParent] = newChild;
+        }
+    }
+
+    private void updateHeight(int slot) {
+        height[slot] = 1 + Math.max(nodeHeight(leftChild[slot]), nodeHeight(rightChild[slot]));
+        size[slot] = 1 + nodeSize(leftChild[slot]) + nodeSize(rightChild[slot]);
+    }
+
+    private int nodeSize(int slot) {
+        return (slot == NIL) ? 0 : size[slot];
+    }
+
+    private int nodeHeight(int slot) {
+        return (slot == NIL) ? -1 : height[slot];
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Runs random inserts and removals against a PooledBinarySearchTree (in
+ * both balancing modes) and a TreeSet, and checks that removed slots are
+ * reused and that Balance.SPLAY is refused. Rank, select, equals and
+ * hashCode are checked against the set; the traversals and toString against
+ * a BinarySearchTree given the same inserts, which builds the same shape.
+ *
+ * @author gerstl
+ */
+public class PooledBinarySearchTreeTest implements RunTest {
+
+    public String runTest() {
+        for (var balance : BinarySearchTree.Balance.values()) {
+            if (balance == BinarySearchTree.Balance.SPLAY) {
+                // not implemented here, so it must be refused
+                try {
+                    new PooledBinarySearchTree<String>(balance, 16);
+                    return "Failed at E0108";
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+            }
+            String result = runTest(new PooledBinarySearchTree<String>(balance, 16), balance);
+            if (!result.isEmpty()) {
+                System.out.println("PooledBinarySearchTree failed in mode " + balance);
+                return result;
+            }
+        }
+        return "";
+    }
+
+    private String runTest(PooledBinarySearchTree<String> theTree, BinarySearchTree.Balance balance) {
+        TreeSet<String> theSet = new TreeSet<>();
+        final int TEST_SIZE = 50_000;
+        var random = new Random();
+        for (int i = 0; i < TEST_SIZE; ++i) {
+            String sNumber = String.format("%010d", random.nextInt(TEST_SIZE));
+            if (theTree.insert(sNumber) != theSet.add(sNumber)) {
+                return "Failed at E0100";
+            }
+        }
+        for (int i = 0; i < TEST_SIZE; ++i) {
+            String sNumber = String.format("%010d", random.nextInt(TEST_SIZE));
+            if (theTree.search(sNumber) != theSet.contains(sNumber)) {
+                return "Failed at E0101";
+            }
+        }
+        int removed = 0;
+        Iterator<String> setIterator = theSet.iterator();
+        while (setIterator.hasNext()) {
+            String element = setIterator.next();
+            if (random.nextInt(3) == 0) {
+                setIterator.remove();
+                if (!theTree.remove(element)) {
+                    return "Failed at E0102";
+                }
+                ++removed;
+            }
+        }
+        if (theTree.numberOfNodes() != theSet.size()) {
+            return "Failed at E0103";
+        }
+        // re-inserting as many keys as were removed must not grow the pool
+        int capacity = theTree.capacity();
+        while (removed > 0) {
+            String sNumber = String.format("%010d", TEST_SIZE + random.nextInt(TEST_SIZE));
+            boolean added = theTree.insert(sNumber);
+            if (added != theSet.add(sNumber)) {
+                return "Failed at E0107";
+            }
+            if (added) {
+                --removed;
+            }
+        }
+        if (theTree.capacity() != capacity) {
+            return "Failed at E0104";
+        }
+        setIterator = theSet.iterator();
+        for (String element : theTree) {
+            if (!setIterator.hasNext() || !setIterator.next().equals(element)) {
+                return "Failed at E0105";
+            }
+        }
+        if (setIterator.hasNext()) {
+            return "Failed at E0106";
+        }
+        var inOrder = new ArrayList<>(theSet);
+        for (int i = 0; i < inOrder.size(); i += 97) {
+            if (!theTree.select(i).equals(inOrder.get(i)) || theTree.rank(inOrder.get(i)) != i) {
+                return "Failed at E0109";
+            }
+        }
+        try {
+            theTree.select(inOrder.size());
+            return "Failed at E0110";
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        if (theTree.hashCode() != theSet.hashCode()) {
+            return "Failed at E0111";
+        }
+        System.out.println("Pooled tree of " + theTree.numberOfNodes()
+                + " nodes uses " + theTree.memoryUsage() + " bytes");
+        return compareShapes(balance, random);
+    }
+
+    // a pooled tree and a BinarySearchTree, fed alike, walk alike
+    private String compareShapes(BinarySearchTree.Balance balance, Random random) {
+        var pooled = new PooledBinarySearchTree<Integer>(balance, 4);
+        var other = new PooledBinarySearchTree<Integer>(balance, 4);
+        var tree = new BinarySearchTree<Integer>(balance);
+        for (int i = 0; i < 500; ++i) {
+            Integer value = random.nextInt(1000);
+            pooled.insert(value);
+            tree.insert(value);
+            if (random.nextInt(4) == 0) {
+                value = random.nextInt(1000);
+                pooled.remove(value);
+                tree.remove(value);
+            }
+        }
+        // BinaryTree's traversals take a raw Consumer
+        var expected = new ArrayList<Object>();
+        var actual = new ArrayList<Object>();
+        tree.dfsPrefix(expected::add);
+        pooled.dfsPrefix(actual::add);
+        if (!expected.equals(actual)) {
+            return "Failed at E0112";
+        }
+        expected.clear();
+        actual.clear();
+        tree.dfsPostfix(expected::add);
+        pooled.dfsPostfix(actual::add);
+        if (!expected.equals(actual)) {
+            return "Failed at E0113";
+        }
+        expected.clear();
+        actual.clear();
+        tree.bfs(expected::add);
+        pooled.bfs(actual::add);
+        if (!expected.equals(actual)) {
+            return "Failed at E0114";
+        }
+        if (!tree.toString().equals(pooled.toString())) {
+            return "Failed at E0115";
+        }
+        // the same elements inserted in order give another shape
+        pooled.dfsInfix(other::insert);
+        if (!pooled.equals(other) || pooled.hashCode() != other.hashCode()) {
+            return "Failed at E0116";
+        }
+        other.remove(other.select(0));
+        if (pooled.equals(other)) {
+            return "Failed at E0117";
+        }
+        return "";
+    }
+
+    public String getTestName() {
+        return "Pooled Binary Search Tree Test";
+    }
+}
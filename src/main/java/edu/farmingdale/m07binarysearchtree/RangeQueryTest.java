@@ -0,0 +1,101 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Checks the range iterator, the descending iterator and the
+ * headSet/tailSet/subSet views against the same views of a TreeSet.
+ *
+ * @author gerstl
+ */
+public class RangeQueryTest implements RunTest {
+
+    public String runTest() {
+        var random = new Random();
+        BinarySearchTree<Integer> theTree = new BinarySearchTree<>(BinarySearchTree.Balance.AVL);
+        TreeSet<Integer> theSet = new TreeSet<>();
+        final int TEST_SIZE = 10_000;
+        for (int i = 0; i < TEST_SIZE; ++i) {
+            int aNumber = random.nextInt(3 * TEST_SIZE);
+            theTree.insert(aNumber);
+            theSet.add(aNumber);
+        }
+        for (int i = 0; i < 500; ++i) {
+            int from = random.nextInt(3 * TEST_SIZE + 10) - 5;
+            int to = from + random.nextInt(TEST_SIZE / 10);
+            if (!sameElements(theTree.iterator(from, to), theSet.subSet(from, to).iterator())) {
+                return "Failed at J0100";
+            }
+            SortedSet<Integer> view = theTree.subSet(from, to);
+            if (view.size() != theSet.subSet(from, to).size()) {
+                return "Failed at J0101";
+            }
+            if (!sameElements(theTree.headSet(to).iterator(), theSet.headSet(to).iterator())
+                    || theTree.headSet(to).size() != theSet.headSet(to).size()) {
+                return "Failed at J0102";
+            }
+            if (!sameElements(theTree.tailSet(from).iterator(), theSet.tailSet(from).iterator())
+                    || theTree.tailSet(from).size() != theSet.tailSet(from).size()) {
+                return "Failed at J0103";
+            }
+            if (!theSet.subSet(from, to).isEmpty()
+                    && (!view.first().equals(theSet.subSet(from, to).first())
+                    || !view.last().equals(theSet.subSet(from, to).last()))) {
+                return "Failed at J0104";
+            }
+        }
+        // open-ended bounds
+        if (!sameElements(theTree.iterator(null, null), theSet.iterator())) {
+            return "Failed at J0105";
+        }
+        if (!sameElements(theTree.descendingIterator(), theSet.descendingIterator())) {
+            return "Failed at J0106";
+        }
+        // views are live in both directions
+        int middle = theSet.first() + (theSet.last() - theSet.first()) / 2;
+        SortedSet<Integer> upper = theTree.tailSet(middle);
+        int size = upper.size();
+        theTree.insert(theSet.last() + 1);
+        if (upper.size() != size + 1 || !upper.contains(theSet.last() + 1)) {
+            return "Failed at J0107";
+        }
+        if (!upper.remove(theSet.last() + 1) || theTree.search(theSet.last() + 1)) {
+            return "Failed at J0108";
+        }
+        try {
+            upper.add(middle - 1);
+            return "Failed at J0109";
+        } catch (IllegalArgumentException e) {
+            // expected: outside the view
+        }
+        // a view of a view
+        List<Integer> nested = new ArrayList<>(theTree.headSet(middle).tailSet(middle / 2));
+        if (!nested.equals(new ArrayList<>(theSet.subSet(middle / 2, middle)))) {
+            return "Failed at J0110";
+        }
+        return "";
+    }
+
+    private static boolean sameElements(Iterator<Integer> a, Iterator<Integer> b) {
+        while (a.hasNext() && b.hasNext()) {
+            if (!a.next().equals(b.next())) {
+                return false;
+            }
+        }
+        return !a.hasNext() && !b.hasNext();
+    }
+
+    public String getTestName() {
+        return "Range Query Test";
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Checks union, intersection, difference and split against addAll,
+ * retainAll, removeAll and tailSet on a TreeSet, for small inputs, large
+ * (forked) inputs, and an unbalanced tree built from sorted input.
+ *
+ * @author gerstl
+ */
+public class SetAlgebraTest implements RunTest {
+
+    public String runTest() {
+        var random = new Random();
+        for (int round = 0; round < 40; ++round) {
+            // mostly small trees; every tenth round is big enough to fork
+            int sizeA = (round % 10 == 9) ? 60_000 : random.nextInt(300);
+            int sizeB = (round % 10 == 9) ? 40_000 : random.nextInt(300);
+            int range = 1 + (sizeA + sizeB) * (1 + random.nextInt(3));
+            BinarySearchTree.Balance mode = (round % 2 == 0)
+                    ? BinarySearchTree.Balance.AVL : BinarySearchTree.Balance.NONE;
+            TreeSet<Integer> setA = new TreeSet<>();
+            TreeSet<Integer> setB = new TreeSet<>();
+            BinarySearchTree<Integer> treeB = new BinarySearchTree<>(mode);
+            for (int i = 0; i < sizeA; ++i) {
+                setA.add(random.nextInt(range));
+            }
+            for (int i = 0; i < sizeB; ++i) {
+                int aNumber = random.nextInt(range);
+                setB.add(aNumber);
+                treeB.insert(aNumber);
+            }
+            BinarySearchTree<Integer> hashCheck = new BinarySearchTree<>(treeB);
+
+            TreeSet<Integer> expected = new TreeSet<>(setA);
+            expected.addAll(setB);
+            BinarySearchTree<Integer> theTree = build(setA, mode, random);
+            if (theTree.union(treeB) != (expected.size() != setA.size())) {
+                return "Failed at L0100";
+            }
+            String problem = check(theTree, expected, "L0101");
+            if (!problem.isEmpty()) {
+                return problem;
+            }
+
+            expected = new TreeSet<>(setA);
+            expected.retainAll(setB);
+            theTree = build(setA, mode, random);
+            if (theTree.intersection(treeB) != (expected.size() != setA.size())) {
+                return "Failed at L0102";
+            }
+            problem = check(theTree, expected, "L0103");
+            if (!problem.isEmpty()) {
+                return problem;
+            }
+
+            expected = new TreeSet<>(setA);
+            expected.removeAll(setB);
+            theTree = build(setA, mode, random);
+            if (theTree.difference(treeB) != (expected.size() != setA.size())) {
+                return "Failed at L0104";
+            }
+            problem = check(theTree, expected, "L0105");
+            if (!problem.isEmpty()) {
+                return problem;
+            }
+
+            // the argument is only read
+            if (!treeB.equals(hashCheck) || treeB.hashCode() != setB.hashCode()) {
+                return "Failed at L0106";
+            }
+
+            int key = random.nextInt(range + 2) - 1;
+            theTree = build(setA, mode, random);
+            BinarySearchTree<Integer> upper = theTree.split(key);
+            problem = check(theTree, new TreeSet<>(setA.headSet(key)), "L0107");
+            if (!problem.isEmpty()) {
+                return problem;
+            }
+            problem = check(upper, new TreeSet<>(setA.tailSet(key)), "L0108");
+            if (!problem.isEmpty()) {
+                return problem;
+            }
+        }
+
+        // a degenerate (sorted, unbalanced) tree on either side
+        BinarySearchTree<Integer> chain = new BinarySearchTree<>();
+        BinarySearchTree<Integer> otherChain = new BinarySearchTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 4_000; ++i) {
+            chain.insert(2 * i);
+            otherChain.insert(3 * i);
+            expected.add(2 * i);
+            expected.add(3 * i);
+        }
+        chain.union(otherChain);
+        String problem = check(chain, expected, "L0109");
+        if (!problem.isEmpty()) {
+            return problem;
+        }
+
+        // with itself
+        BinarySearchTree<Integer> self = BinarySearchTree.fromSorted(expected);
+        if (self.union(self) || self.intersection(self) || self.numberOfNodes() != expected.size()) {
+            return "Failed at L0110";
+        }
+        if (!self.difference(self) || !self.isEmpty() || self.hashCode() != 0) {
+            return "Failed at L0111";
+        }
+        return "";
+    }
+
+    /**
+     * A tree holding the elements of a set, inserted in random order
+     */
+    private static BinarySearchTree<Integer> build(TreeSet<Integer> elements, BinarySearchTree.Balance mode, Random random) {
+        var shuffled = new ArrayList<>(elements);
+        Collections.shuffle(shuffled, random);
+        BinarySearchTree<Integer> rv = new BinarySearchTree<>(mode);
+        for (Integer element : shuffled) {
+            rv.insert(element);
+        }
+        return rv;
+    }
+
+    /**
+     * Same elements in the same order, same cached size and hash, every
+     * parent link right, and (for AVL trees) still AVL-shaped
+     */
+    private static String check(BinarySearchTree<Integer> tree, TreeSet<Integer> expected, String code) {
+        boolean avl = tree.balance == BinarySearchTree.Balance.AVL;
+        var actual = new ArrayList<Integer>();
+        tree.forEach(actual::add);
+        if (!actual.equals(new ArrayList<>(expected))) {
+            return "Failed at " + code + " (elements)";
+        }
+        if (tree.numberOfNodes() != expected.size() || tree.hashCode() != expected.hashCode()) {
+            return "Failed at " + code + " (size or hash)";
+        }
+        BinaryTree<Integer>.Node<Integer> root = tree.rootNode();
+        if (null != root && (null != root.parent || !consistent(root, avl))) {
+            return "Failed at " + code + " (structure)";
+        }
+        if (avl && tree.height() > 1.45 * Math.log(expected.size() + 2) / Math.log(2)) {
+            return "Failed at " + code + " (height)";
+        }
+        return "";
+    }
+
+    private static boolean consistent(BinaryTree<Integer>.Node<Integer> node, boolean avl) {
+        var pending = new ArrayDeque<BinaryTree<Integer>.Node<Integer>>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            var n = pending.pop();
+            int leftHeight = (null == n.leftChild) ? -1 : n.leftChild.height;
+            int rightHeight = (null == n.rightChild) ? -1 : n.rightChild.height;
+            if (n.height != 1 + Math.max(leftHeight, rightHeight) || (avl && Math.abs(leftHeight - rightHeight) > 1)) {
+                return false;
+            }
+            if (null != n.leftChild) {
+                if (n.leftChild.parent != n) {
+                    return false;
+                }
+                pending.push(n.leftChild);
+            }
+            if (null != n.rightChild) {
+                if (n.rightChild.parent != n) {
+                    return false;
+                }
+                pending.push(n.rightChild);
+            }
+        }
+        return true;
+    }
+
+    public String getTestName() {
+        return "Set Algebra Test";
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Checks the SPLAY mode: every operation must leave the node it reached at
+ * the root, the content must match a TreeSet through a random mix of
+ * operations, the cached heights, sizes and hashes must survive the
+ * rotations, and a small set of hot keys must be found in a few steps.
+ *
+ * @author gerstl
+ */
+public class SplayTreeTest implements RunTest {
+
+    public String runTest() {
+        final int TEST_SIZE = 100_000;
+        var random = new Random();
+        BinarySearchTree<Integer> theTree = new BinarySearchTree<>(BinarySearchTree.Balance.SPLAY);
+        TreeSet<Integer> theSet = new TreeSet<>();
+
+        // sorted inserts are cheap (each new key is the new root) and leave
+        // a path; touching its far end must roughly halve the height
+        for (int i = 0; i < TEST_SIZE; ++i) {
+            if (!theTree.insert(i) || !theTree.root.data.equals(i)) {
+                return "Failed at R0100";
+            }
+            theSet.add(i);
+        }
+        if (theTree.height() != TEST_SIZE - 1) {
+            return "Failed at R0101";
+        }
+        if (!theTree.search(0) || !theTree.root.data.equals(0) || theTree.height() > TEST_SIZE / 2 + 2) {
+            return "Failed at R0102";
+        }
+        String bad = checkNodes(theTree);
+        if (null != bad) {
+            return bad;
+        }
+
+        // a random mix, checked against the set; misses splay too
+        for (int i = 0; i < 200_000; ++i) {
+            int aNumber = random.nextInt(TEST_SIZE * 2);
+            switch (random.nextInt(3)) {
+                case 0:
+                    if (theTree.insert(aNumber) != theSet.add(aNumber) || !theTree.root.data.equals(aNumber)) {
+                        return "Failed at R0103";
+                    }
+                    break;
+                case 1:
+                    if (theTree.search(aNumber) != theSet.contains(aNumber)) {
+                        return "Failed at R0104";
+                    }
+                    if (theSet.contains(aNumber) && !theTree.root.data.equals(aNumber)) {
+                        return "Failed at R0105";
+                    }
+                    break;
+                default:
+                    if (theTree.remove(aNumber) != theSet.remove(aNumber)) {
+                        return "Failed at R0106";
+                    }
+                    break;
+            }
+        }
+        bad = checkNodes(theTree);
+        if (null != bad) {
+            return bad;
+        }
+        Iterator<Integer> setIterator = theSet.iterator();
+        for (Integer element : theTree) {
+            if (!setIterator.hasNext() || !setIterator.next().equals(element)) {
+                return "Failed at R0107";
+            }
+        }
+        if (setIterator.hasNext() || theTree.hashCode() != theSet.hashCode()
+                || theTree.rank(TEST_SIZE) != theSet.headSet(TEST_SIZE).size()) {
+            return "Failed at R0108";
+        }
+
+        // hot keys: after a warm up, 32 keys looked up over and over stay
+        // within a few levels of the root
+        Integer[] hot = new Integer[32];
+        for (int i = 0; i < hot.length; ++i) {
+            hot[i] = theTree.select(random.nextInt(theTree.numberOfNodes()));
+        }
+        for (int i = 0; i < 10_000; ++i) {
+            theTree.search(hot[random.nextInt(hot.length)]);
+        }
+        var recorder = new MetricsRecorder();
+        theTree.setMetrics(recorder);
+        for (int i = 0; i < 10_000; ++i) {
+            if (!theTree.search(hot[random.nextInt(hot.length)])) {
+                return "Failed at R0109";
+            }
+        }
+        double meanPath = recorder.snapshot().meanComparisons(TreeMetrics.Operation.SEARCH);
+        if (meanPath > 12) {
+            System.out.println("Mean path to a hot key is " + meanPath);
+            return "Failed at R0110";
+        }
+        return "";
+    }
+
+    /**
+     * Walk every node checking the parent links and recomputing the cached
+     * height, size and hash from the children
+     */
+    @SuppressWarnings("rawtypes")
+    private static String checkNodes(BinarySearchTree<Integer> theTree) {
+        if (null != theTree.root && null != theTree.root.parent) {
+            return "Failed at R0111";
+        }
+        var stack = new ArrayDeque<BinaryTree.Node>();
+        if (null != theTree.root) {
+            stack.push(theTree.root);
+        }
+        while (!stack.isEmpty()) {
+            BinaryTree.Node node = stack.pop();
+            int height = -1;
+            int size = 1;
+            int hash = node.data.hashCode();
+            for (BinaryTree.Node child : new BinaryTree.Node[]{node.leftChild, node.rightChild}) {
+                if (null != child) {
+                    if (child.parent != node) {
+                        return "Failed at R0112";
+                    }
+                    height = Math.max(height, child.height);
+                    size += child.size;
+                    hash += child.hash;
+                    stack.push(child);
+                }
+            }
+            if (node.height != height + 1 || node.size != size || node.hash != hash) {
+                return "Failed at R0113";
+            }
+        }
+        return null;
+    }
+
+    public String getTestName() {
+        return "Splay Tree Test";
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Checks the splittable spliterator: sequential and parallel streams must
+ * produce the TreeSet's elements in the same order, and splits must account
+ * for every element exactly once.
+ *
+ * @author gerstl
+ */
+public class StreamTest implements RunTest {
+
+    public String runTest() {
+        var random = new Random();
+        BinarySearchTree<Integer> theTree = new BinarySearchTree<>();
+        TreeSet<Integer> theSet = new TreeSet<>();
+        final int TEST_SIZE = 200_000;
+        for (int i = 0; i < TEST_SIZE; ++i) {
+            int aNumber = random.nextInt(2 * TEST_SIZE);
+            theTree.insert(aNumber);
+            theSet.add(aNumber);
+        }
+        List<Integer> expected = new ArrayList<>(theSet);
+        if (!theTree.stream().collect(Collectors.toList()).equals(expected)) {
+            return "Failed at K0100";
+        }
+        // encounter order survives a parallel run
+        if (!theTree.parallelStream().collect(Collectors.toList()).equals(expected)) {
+            return "Failed at K0101";
+        }
+        long sum = theSet.stream().mapToLong(Integer::longValue).sum();
+        if (theTree.parallelStream().mapToLong(Integer::longValue).sum() != sum) {
+            return "Failed at K0102";
+        }
+        if (theTree.parallelStream().filter(e -> e % 3 == 0).count()
+                != theSet.stream().filter(e -> e % 3 == 0).count()) {
+            return "Failed at K0103";
+        }
+        Spliterator<Integer> whole = theTree.spliterator();
+        int wanted = Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.ORDERED
+                | Spliterator.SIZED | Spliterator.SUBSIZED;
+        if ((whole.characteristics() & wanted) != wanted || whole.getExactSizeIfKnown() != theSet.size()) {
+            return "Failed at K0104";
+        }
+        // split by hand: the prefix comes first and the sizes add up
+        Spliterator<Integer> prefix = whole.trySplit();
+        if (null == prefix || prefix.estimateSize() + whole.estimateSize() != theSet.size()) {
+            return "Failed at K0105";
+        }
+        List<Integer> rejoined = new ArrayList<>();
+        prefix.tryAdvance(rejoined::add);
+        prefix.forEachRemaining(rejoined::add);
+        whole.forEachRemaining(rejoined::add);
+        if (!rejoined.equals(expected)) {
+            return "Failed at K0106";
+        }
+        if (new BinarySearchTree<Integer>().parallelStream().count() != 0) {
+            return "Failed at K0107";
+        }
+        return "";
+    }
+
+    public String getTestName() {
+        return "Stream Test";
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * (c) David Gerstl, 2021. all rights reserved. For use
+ * in my CSC programming classes
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+/**
+ * Runs every RunTest without the JavaFX App, so the suites can run on a
+ * machine with no display (e.g. a build server). The tests are found with
+ * ClassGraph as App finds them, run one after another or, with --parallel,
+ * on a fixed pool of threads, and for each one the wall time, the CPU time
+ * and the bytes allocated by the thread that ran it are recorded. The
+ * results are written as JSON, and the exit status is 0 only if every test
+ * passed.
+ *
+ * Usage (or mvn javafx:run@headless -Djavafx.args="..."):
+ * <pre>
+ *   TestRunner [--parallel [threads]] [--only regex] [--json file]
+ * </pre>
+ * --only keeps the tests whose simple class name matches the regex, and
+ * --json names the output file (test-results.json by default; - for
+ * standard output).
+ *
+ * CPU time and allocation are per thread, so work a test hands to other
+ * threads (a parallel copy or stream, say) is not counted, and in a
+ * parallel run the wall times include waiting for a share of the cores.
+ *
+ * @author gerstl
+ */
+public class TestRunner {
+
+    private static final String USAGE = "usage: TestRunner [--parallel [threads]] [--only regex] [--json file]";
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    // the HotSpot bean also counts allocated bytes; null elsewhere
+    private final com.sun.management.ThreadMXBean hotSpotThreads;
+
+    TestRunner() {
+        hotSpotThreads = (threads instanceof com.sun.management.ThreadMXBean)
+                ? (com.sun.management.ThreadMXBean) threads : null;
+        if (threads.isThreadCpuTimeSupported() && !threads.isThreadCpuTimeEnabled()) {
+            threads.setThreadCpuTimeEnabled(true);
+        }
+        if (null != hotSpotThreads && hotSpotThreads.isThreadAllocatedMemorySupported()
+                && !hotSpotThreads.isThreadAllocatedMemoryEnabled()) {
+            hotSpotThreads.setThreadAllocatedMemoryEnabled(true);
+        }
+    }
+
+    /**
+     * Find every class implementing RunTest (with a no argument
+     * constructor), ordered by name so runs are comparable
+     *
+     * @param only keeps the classes whose simple name matches; null for all
+     * @return the class names
+     */
+    static List<String> findTests(Pattern only) {
+        var rv = new ArrayList<String>();
+        try (ScanResult scanResult = new ClassGraph().enableClassInfo()
+                .acceptPackages(RunTest.class.getPackageName()).scan()) {
+            for (ClassInfo classInfo : scanResult.getClassesImplementing(RunTest.class.getName())) {
+                if (!classInfo.isAbstract() && (null == only || only.matcher(classInfo.getSimpleName()).find())) {
+                    rv.add(classInfo.getName());
+                }
+            }
+        }
+        rv.sort(null);
+        return rv;
+    }
+
+    /**
+     * Make and run one test on the current thread
+     *
+     * @param className the test class
+     * @return its result: name, result string, passed, wallNanos, cpuNanos
+     * and allocatedBytes (-1 where the JVM cannot measure)
+     */
+    JsonObject runOne(String className) {
+        var rv = new JsonObject();
+        rv.addProperty("className", className);
+        RunTest theTest;
+        try {
+            theTest = (RunTest) Class.forName(className).getConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            rv.addProperty("name", className);
+            rv.addProperty("result", "could not create the test: " + e);
+            rv.addProperty("passed", false);
+            return rv;
+        }
+        rv.addProperty("name", theTest.getTestName());
+        long cpuBefore = cpuTime();
+        long allocatedBefore = allocated();
+        long start = System.nanoTime();
+        String result;
+        try {
+            result = theTest.runTest();
+        } catch (Throwable t) {
+            result = "threw " + t;
+        }
+        long wall = System.nanoTime() - start;
+        long cpu = (cpuBefore < 0) ? -1 : cpuTime() - cpuBefore;
+        long allocatedBytes = (allocatedBefore < 0) ? -1 : allocated() - allocatedBefore;
+        rv.addProperty("result", result);
+        rv.addProperty("passed", "".equals(result));
+        rv.addProperty("wallNanos", wall);
+        rv.addProperty("cpuNanos", cpu);
+        rv.addProperty("allocatedBytes", allocatedBytes);
+        return rv;
+    }
+
+    private long cpuTime() {
+        return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1;
+    }
+
+    private long allocated() {
+        if (null == hotSpotThreads || !hotSpotThreads.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        return hotSpotThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Run the tests, in order on this thread or on a pool
+     *
+     * @param classNames the tests
+     * @param parallelism threads to run them on; 1 runs them here
+     * @return the summary and the results, in the order given
+     */
+    JsonObject runAll(List<String> classNames, int parallelism) throws InterruptedException {
+        var results = new JsonArray();
+        long start = System.nanoTime();
+        if (parallelism <= 1) {
+            for (String className : classNames) {
+                results.add(report(runOne(className)));
+            }
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+            try {
+                var futures = new ArrayList<Future<JsonObject>>();
+                for (String className : classNames) {
+                    futures.add(pool.submit(() -> runOne(className)));
+                }
+                for (Future<JsonObject> future : futures) {
+                    results.add(report(future.get()));
+                }
+            } catch (ExecutionException e) {
+                // runOne() catches whatever a test throws
+                throw new IllegalStateException(e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        int passed = 0;
+        for (var result : results) {
+            if (result.getAsJsonObject().get("passed").getAsBoolean()) {
+                ++passed;
+            }
+        }
+        var rv = new JsonObject();
+        rv.addProperty("javaVersion", SystemInfo.javaVersion());
+        rv.addProperty("availableProcessors", Runtime.getRuntime().availableProcessors());
+        rv.addProperty("parallelism", Math.max(1, parallelism));
+        rv.addProperty("wallNanos", System.nanoTime() - start);
+        rv.addProperty("passed", passed);
+        rv.addProperty("failed", results.size() - passed);
+        rv.add("tests", results);
+        return rv;
+    }
+
+    // one line per test on the console as the results come in
+    private static JsonObject report(JsonObject result) {
+        StringBuilder line = new StringBuilder();
+        line.append(result.get("passed").getAsBoolean() ? "PASS " : "FAIL ");
+        line.append(result.get("name").getAsString());
+        if (result.has("wallNanos")) {
+            line.append(String.format(" %.1f ms wall, %.1f ms cpu, %.1f MB allocated",
+                    result.get("wallNanos").getAsLong() / 1e6, result.get("cpuNanos").getAsLong() / 1e6,
+                    result.get("allocatedBytes").getAsLong() / 1e6));
+        }
+        if (!result.get("passed").getAsBoolean()) {
+            line.append(": ").append(result.get("result").getAsString());
+        }
+        System.err.println(line);
+        return result;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int parallelism = 1;
+        Pattern only = null;
+        String json = "test-results.json";
+        // javafx:run hands all of -Djavafx.args over as a single argument
+        if (args.length == 1 && args[0].trim().contains(" ")) {
+            args = args[0].trim().split("\\s+");
+        }
+        try {
+            for (int i = 0; i < args.length; ++i) {
+                switch (args[i]) {
+                    case "--parallel":
+                        if (i + 1 < args.length && args[i + 1].matches("\\d+")) {
+                            parallelism = Integer.parseInt(args[++i]);
+                        } else {
+                            parallelism = Runtime.getRuntime().availableProcessors();
+                        }
+                        break;
+                    case "--only":
+                        only = Pattern.compile(args[++i]);
+                        break;
+                    case "--json":
+                        json = args[++i];
+                        break;
+                    default:
+                        throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("bad argument: " + e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        var runner = new TestRunner();
+        JsonObject results = runner.runAll(findTests(only), parallelism);
+        var gson = new GsonBuilder().setPrettyPrinting().create();
+        if ("-".equals(json)) {
+            System.out.println(gson.toJson(results));
+        } else {
+            Path path = Paths.get(json);
+            try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                gson.toJson(results, out);
+            }
+            System.err.println("Results written to " + path.toAbsolutePath());
+        }
+        System.err.println(results.get("passed") + " passed, " + results.get("failed") + " failed in "
+                + String.format("%.1f", results.get("wallNanos").getAsLong() / 1e9) + " s");
+        System.exit(results.get("failed").getAsInt() == 0 ? 0 : 1);
+    }
+}
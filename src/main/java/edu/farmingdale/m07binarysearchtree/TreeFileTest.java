@@ -0,0 +1,242 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Checks save/load and the mapped tree file for both codecs: the loaded
+ * tree and the mapped file must agree with a TreeSet, the wrong codec and a
+ * damaged file must be refused, saving over a file must replace it, and a
+ * save that fails (too large, or the codec throws) must leave the old file
+ * and no temporary file behind, and concurrent saves to one file must not
+ * trip over each other.
+ *
+ * @author gerstl
+ */
+public class TreeFileTest implements RunTest {
+
+    public String runTest() {
+        Path dir = null;
+        try {
+            dir = Files.createTempDirectory("treefile");
+            return runTest(dir);
+        } catch (IOException e) {
+            return "Failed at N0100 (" + e + ")";
+        } finally {
+            if (null != dir) {
+                try (var files = Files.list(dir)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        Files.delete(file);
+                    }
+                    Files.delete(dir);
+                } catch (IOException e) {
+                    // leave it for the OS
+                }
+            }
+        }
+    }
+
+    private String runTest(Path dir) throws IOException {
+        var random = new Random();
+        TreeSet<String> stringSet = new TreeSet<>();
+        TreeSet<Integer> intSet = new TreeSet<>();
+        BinarySearchTree<String> stringTree = new BinarySearchTree<>();
+        BinarySearchTree<Integer> intTree = new BinarySearchTree<>(BinarySearchTree.Balance.AVL);
+        for (int i = 0; i < 50_000; ++i) {
+            int aNumber = random.nextInt(200_000) - 100_000;
+            // non-ASCII so the UTF-8 lengths vary
+            String sNumber = "é" + aNumber;
+            stringSet.add(sNumber);
+            stringTree.insert(sNumber);
+            intSet.add(aNumber);
+            intTree.insert(aNumber);
+        }
+        Path stringFile = dir.resolve("strings.bst");
+        Path intFile = dir.resolve("ints.bst");
+        stringTree.save(stringFile, KeyCodec.STRING);
+        intTree.save(intFile, KeyCodec.INTEGER);
+
+        BinarySearchTree<String> loadedStrings = BinarySearchTree.load(stringFile, KeyCodec.STRING, BinarySearchTree.Balance.AVL);
+        if (!loadedStrings.equals(stringTree) || loadedStrings.hashCode() != stringSet.hashCode()) {
+            return "Failed at N0101";
+        }
+        BinarySearchTree<Integer> loadedInts = BinarySearchTree.load(intFile, KeyCodec.INTEGER, BinarySearchTree.Balance.NONE);
+        if (!loadedInts.equals(intTree) || loadedInts.height() != 31 - Integer.numberOfLeadingZeros(intSet.size())) {
+            return "Failed at N0102";
+        }
+
+        // query in place
+        MappedBinarySearchTree<Integer> mappedInts = MappedBinarySearchTree.open(intFile, KeyCodec.INTEGER);
+        MappedBinarySearchTree<String> mappedStrings = MappedBinarySearchTree.open(stringFile, KeyCodec.STRING);
+        if (mappedInts.numberOfNodes() != intSet.size() || mappedStrings.numberOfNodes() != stringSet.size()) {
+            return "Failed at N0103";
+        }
+        for (int i = 0; i < 5_000; ++i) {
+            int aNumber = random.nextInt(220_000) - 110_000;
+            String sNumber = "é" + aNumber;
+            if (mappedInts.search(aNumber) != intSet.contains(aNumber)
+                    || mappedStrings.search(sNumber) != stringSet.contains(sNumber)) {
+                return "Failed at N0104";
+            }
+            if (mappedInts.rank(aNumber) != intSet.headSet(aNumber).size()
+                    || mappedInts.countInRange(aNumber, aNumber + 500)
+                    != intSet.subSet(aNumber, true, aNumber + 500, true).size()) {
+                return "Failed at N0105";
+            }
+        }
+        if (!sameElements(mappedStrings.iterator(), stringSet.iterator())
+                || !sameElements(mappedInts.iterator(-50, 50), intSet.subSet(-50, 50).iterator())
+                || !mappedInts.select(0).equals(intSet.first())) {
+            return "Failed at N0106";
+        }
+
+        // wrong codec, damaged file
+        try {
+            MappedBinarySearchTree.open(intFile, KeyCodec.STRING);
+            return "Failed at N0107";
+        } catch (IOException e) {
+            // expected
+        }
+        Path damaged = dir.resolve("damaged.bst");
+        byte[] bytes = Files.readAllBytes(stringFile);
+        Files.write(damaged, Arrays.copyOf(bytes, bytes.length / 2));
+        try {
+            MappedBinarySearchTree.open(damaged, KeyCodec.STRING);
+            return "Failed at N0108";
+        } catch (IOException e) {
+            // expected
+        }
+
+        // failed saves: too large to map, refused before writing; a codec
+        // that gives up half way
+        try {
+            intTree.save(intFile, new FakeCodec(1 << 20, false));
+            return "Failed at N0111";
+        } catch (IOException e) {
+            // expected
+        }
+        try {
+            intTree.save(intFile, new FakeCodec(-1, true));
+            return "Failed at N0112";
+        } catch (IOException e) {
+            // expected
+        }
+        if (!BinarySearchTree.load(intFile, KeyCodec.INTEGER, BinarySearchTree.Balance.AVL).equals(intTree)) {
+            return "Failed at N0113";
+        }
+
+        // two threads saving to the same file: each save is whole, the
+        // last rename wins
+        BinarySearchTree<Integer> small = new BinarySearchTree<>();
+        small.insertAll(List.of(1, 2, 3));
+        Thread other = new Thread(() -> {
+            try {
+                for (int i = 0; i < 20; ++i) {
+                    small.save(intFile, KeyCodec.INTEGER);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        Throwable[] otherFailure = {null};
+        other.setUncaughtExceptionHandler((t, e) -> otherFailure[0] = e);
+        other.start();
+        IOException failure = null;
+        try {
+            for (int i = 0; i < 20; ++i) {
+                intTree.save(intFile, KeyCodec.INTEGER);
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+        try {
+            other.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (null != failure || null != otherFailure[0]) {
+            return "Failed at N0114 (" + ((null != failure) ? failure : otherFailure[0]) + ")";
+        }
+        BinarySearchTree<Integer> winner = BinarySearchTree.load(intFile, KeyCodec.INTEGER, BinarySearchTree.Balance.AVL);
+        if (!winner.equals(intTree) && !winner.equals(small)) {
+            return "Failed at N0115";
+        }
+
+        // saving replaces the file; empty trees round trip
+        new BinarySearchTree<Integer>().save(intFile, KeyCodec.INTEGER);
+        if (!BinarySearchTree.load(intFile, KeyCodec.INTEGER, BinarySearchTree.Balance.AVL).isEmpty()) {
+            return "Failed at N0109";
+        }
+        try (var files = Files.list(dir)) {
+            List<String> names = files.map(p -> p.getFileName().toString()).sorted().collect(Collectors.toList());
+            if (!names.equals(List.of("damaged.bst", "ints.bst", "strings.bst"))) {
+                return "Failed at N0110";
+            }
+        }
+        return "";
+    }
+
+    // claims a width (or -1), writes 4 bytes a key, and can fail half way
+    private static final class FakeCodec implements KeyCodec<Integer> {
+
+        private final int width;
+        private final boolean fails;
+        private int written;
+
+        FakeCodec(int width, boolean fails) {
+            this.width = width;
+            this.fails = fails;
+        }
+
+        @Override
+        public int id() {
+            return 99;
+        }
+
+        @Override
+        public int width() {
+            return width;
+        }
+
+        @Override
+        public void write(Integer key, DataOutput out) throws IOException {
+            if (fails && ++written > 1_000) {
+                throw new IOException("codec failed");
+            }
+            out.writeInt(key);
+        }
+
+        @Override
+        public Integer read(ByteBuffer in, int offset, int length) {
+            return in.getInt(offset);
+        }
+    }
+
+    private static <T> boolean sameElements(Iterator<T> a, Iterator<T> b) {
+        while (a.hasNext() && b.hasNext()) {
+            if (!a.next().equals(b.next())) {
+                return false;
+            }
+        }
+        return !a.hasNext() && !b.hasNext();
+    }
+
+    public String getTestName() {
+        return "Tree File Test";
+    }
+}
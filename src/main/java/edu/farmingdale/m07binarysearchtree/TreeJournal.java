@@ -0,0 +1,356 @@
+/*
+ * (c) David Gerstl, 2021. all rights reserved. For use
+ * in my CSC programming classes
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only write-ahead journal of the changes to a BinarySearchTree,
+ * for durability between snapshots (BinarySearchTree.save()). Attach one
+ * with BinarySearchTree.setJournal(); every successful insert and remove
+ * then appends a record.
+ *
+ * Appending only copies the record into a memory buffer. A background
+ * thread writes the buffer and fsyncs it every SYNC_INTERVAL_MILLIS (or
+ * sooner once BATCH_BYTES are waiting), so one fsync covers every change
+ * made in that window: this is group commit, and it keeps the tree running
+ * at close to its in-memory rate. The price is that a crash can lose the
+ * last window of changes; call sync() to wait until everything appended so
+ * far is on disk.
+ *
+ * Each record is: op (1 byte), key length (int), key (via the KeyCodec),
+ * CRC32 of the three (int). replay() stops at the first record that is
+ * incomplete or fails its checksum (a write torn by a crash) and cuts the
+ * file there.
+ *
+ * Replaying is idempotent: after a journal is replayed, each key it
+ * mentions is present iff its last record was an insert, whatever the
+ * starting tree. So a crash between writing a snapshot and resetting the
+ * journal in checkpoint() is harmless.
+ *
+ * @author gerstl
+ * @param <T> the key type
+ */
+public final class TreeJournal<T> implements AutoCloseable {
+
+    static final byte INSERT = 1;
+    static final byte REMOVE = 2;
+    static final byte CLEAR = 3;
+
+    // the most a change waits in memory before it is written and synced
+    public static final long SYNC_INTERVAL_MILLIS = 10;
+    // write early once this much is waiting
+    static final int BATCH_BYTES = 1 << 20;
+    // appends wait once this much is waiting
+    static final int MAX_PENDING_BYTES = 16 * BATCH_BYTES;
+
+    private final FileChannel channel;
+    private final KeyCodec<T> codec;
+    private final Thread flusher;
+
+    // everything below is guarded by lock
+    private final Object lock = new Object();
+    private Buffer pending = new Buffer();
+    private Buffer writing = new Buffer();
+    private long appended;
+    private long durable;
+    private boolean syncRequested;
+    private boolean closed;
+    private IOException failure;
+
+    // used only by the appending thread
+    private final Buffer key = new Buffer();
+    private final DataOutputStream keyOut = new DataOutputStream(key);
+    private final CRC32 crc = new CRC32();
+
+    private TreeJournal(FileChannel channel, KeyCodec<T> codec) {
+        this.channel = channel;
+        this.codec = codec;
+        flusher = new Thread(this::flushLoop, "tree-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Open (or create) a journal for appending. Replay it first if it may
+     * hold changes the tree does not have yet.
+     *
+     * @param <T> the key type
+     * @param file the journal file
+     * @param codec how keys are written
+     * @return the journal
+     * @throws IOException if the file cannot be opened
+     */
+    public static <T> TreeJournal<T> open(Path file, KeyCodec<T> codec) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.READ);
+        channel.position(channel.size());
+        return new TreeJournal<>(channel, codec);
+    }
+
+    /**
+     * Apply the records of a journal to a tree (which should not have a
+     * journal attached yet), and cut off a torn last record.
+     *
+     * @param <T> the key type
+     * @param file the journal; a missing file is an empty journal
+     * @param codec how keys were written
+     * @param tree the tree, usually just loaded from the last snapshot
+     * @return the number of records applied
+     * @throws IOException if the journal cannot be read
+     */
+    public static <T> long replay(Path file, KeyCodec<T> codec, BinarySearchTree<T> tree) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to replay; checkpoint more often");
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 check = new CRC32();
+            long applied = 0;
+            int position = 0;
+            // op + length + checksum
+            while (position + 9 <= size) {
+                byte op = in.get(position);
+                int length = in.getInt(position + 1);
+                if (length < 0 || position + 9L + length > size) {
+                    break;
+                }
+                check.reset();
+                check.update(in.duplicate().position(position).limit(position + 5 + length));
+                if ((int) check.getValue() != in.getInt(position + 5 + length)) {
+                    break;
+                }
+                T element = (op == CLEAR) ? null : codec.read(in, position + 5, length);
+                if (op == INSERT) {
+                    tree.insert(element);
+                } else if (op == REMOVE) {
+                    tree.remove(element);
+                } else if (op == CLEAR) {
+                    tree.clear();
+                } else {
+                    break;
+                }
+                ++applied;
+                position += 9 + length;
+            }
+            if (position < size) {
+                channel.truncate(position);
+                channel.force(true);
+            }
+            return applied;
+        }
+    }
+
+    /**
+     * Record a change. This does not wait for the disk.
+     *
+     * @throws UncheckedIOException if an earlier write to the journal failed
+     */
+    void append(byte op, T element) {
+        key.reset();
+        crc.reset();
+        try {
+            if (op != CLEAR) {
+                codec.write(element, keyOut);
+            }
+        } catch (IOException e) {
+            // the key buffer is in memory; a codec should not fail writing to it
+            throw new UncheckedIOException(e);
+        }
+        byte[] header = {op, 0, 0, 0, 0};
+        ByteBuffer.wrap(header).putInt(1, key.size());
+        crc.update(header);
+        crc.update(key.array(), 0, key.size());
+        synchronized (lock) {
+            checkFailure();
+            if (closed) {
+                throw new IllegalStateException("journal is closed");
+            }
+            // if the disk falls behind, hold the tree back rather than grow
+            // the buffer without limit
+            while (pending.size() >= MAX_PENDING_BYTES && null == failure) {
+                lock.notifyAll();
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            pending.write(header, 0, header.length);
+            pending.write(key.array(), 0, key.size());
+            pending.writeInt((int) crc.getValue());
+            ++appended;
+            if (pending.size() >= BATCH_BYTES) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Wait until every change recorded so far is on disk
+     *
+     * @throws IOException if the journal could not be written
+     */
+    public void sync() throws IOException {
+        synchronized (lock) {
+            long target = appended;
+            while (durable < target && null == failure) {
+                syncRequested = true;
+                lock.notifyAll();
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("interrupted waiting for the journal", e);
+                }
+            }
+            if (null != failure) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Snapshot the tree and empty the journal, so a restart only has to
+     * replay what happens after this. Call it with the tree quiet.
+     *
+     * @param tree the tree this journal belongs to
+     * @param snapshot where to save it
+     * @throws IOException if either file cannot be written
+     */
+    public void checkpoint(BinarySearchTree<T> tree, Path snapshot) throws IOException {
+        sync();
+        tree.save(snapshot, codec);
+        synchronized (lock) {
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Sync and close the journal. The tree should be detached from it first.
+     *
+     * @throws IOException if the last changes could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            synchronized (lock) {
+                closed = true;
+                lock.notifyAll();
+            }
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * The background thread that writes the journal (for tests)
+     */
+    Thread flusher() {
+        return flusher;
+    }
+
+    private void checkFailure() {
+        if (null != failure) {
+            throw new UncheckedIOException("journal write failed", failure);
+        }
+    }
+
+    /**
+     * The background thread: wait for a batch (or the interval, or a sync()),
+     * swap buffers so appends carry on, write and fsync outside the lock.
+     */
+    private void flushLoop() {
+        long interval = TimeUnit.MILLISECONDS.toNanos(SYNC_INTERVAL_MILLIS);
+        while (true) {
+            long target;
+            synchronized (lock) {
+                long deadline = System.nanoTime() + interval;
+                while (!closed && !syncRequested && pending.size() < BATCH_BYTES
+                        && (pending.size() == 0 || System.nanoTime() < deadline)) {
+                    try {
+                        long wait = (pending.size() == 0) ? interval : deadline - System.nanoTime();
+                        TimeUnit.NANOSECONDS.timedWait(lock, Math.max(wait, 1));
+                    } catch (InterruptedException e) {
+                        failure = new IOException("journal flusher interrupted", e);
+                        lock.notifyAll();
+                        return;
+                    }
+                }
+                if (closed && pending.size() == 0) {
+                    return;
+                }
+                syncRequested = false;
+                Buffer swap = writing;
+                writing = pending;
+                pending = swap;
+                target = appended;
+            }
+            try {
+                ByteBuffer out = ByteBuffer.wrap(writing.array(), 0, writing.size());
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                channel.force(false);
+                writing.reset();
+                synchronized (lock) {
+                    durable = target;
+                    lock.notifyAll();
+                }
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * A byte buffer whose array can be read without a copy
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        Buffer() {
+            super(1 << 16);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+
+        void writeInt(int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * (c) David Gerstl, 2021. all rights reserved. For use
+ * in my CSC programming classes
+ */
+package edu.farmingdale.m07binarysearchtree;
+
+/**
+ * Where a tree reports its insert, search and remove operations (see
+ * BinaryTree.setMetrics()). With no sink attached a tree does no timing or
+ * reporting at all. MetricsRecorder keeps counts and histograms for
+ * snapshots; JfrTreeMetrics emits Java Flight Recorder events.
+ *
+ * record() is called on the thread that ran the operation, right after it,
+ * so it should be quick and, if the tree is read from several threads,
+ * thread safe.
+ *
+ * @author gerstl
+ */
+public interface TreeMetrics {
+
+    /**
+     * The operations reported
+     */
+    enum Operation {
+        INSERT,
+        SEARCH,
+        REMOVE
+    }
+
+    /**
+     * One operation
+     *
+     * @param operation what was done
+     * @param hit insert: added; search: found; remove: removed
+     * @param comparisons key comparisons made
+     * @param pathLength nodes visited on the way down
+     * @param nanos how long it took
+     * @param height the height of the tree afterwards
+     * @param nodes the number of nodes afterwards
+     */
+    void record(Operation operation, boolean hit, int comparisons, int pathLength, long nanos,
+            int height, int nodes);
+
+    /**
+     * Report to this sink and then to another
+     *
+     * @param next the second sink
+     * @return a sink that reports to both
+     */
+    default TreeMetrics andThen(TreeMetrics next) {
+        return (operation, hit, comparisons, pathLength, nanos, height, nodes) -> {
+            record(operation, hit, comparisons, pathLength, nanos, height, nodes);
+            next.record(operation, hit, comparisons, pathLength, nanos, height, nodes);
+        };
+    }
+}
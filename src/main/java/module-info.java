@@ -3,5 +3,7 @@ module edu.farmingdale.m07binarysearchtree {
     requires io.github.classgraph;
     requires java.sql; // for Time, for Gson
     requires gson;
+    requires jdk.jfr; // for JfrTreeMetrics
+    requires jdk.management; // CPU time and allocation in TestRunner
     exports edu.farmingdale.m07binarysearchtree;
 }